@@ -0,0 +1,49 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * PrefixIndex.getCompletions for the first three letters of words of the
+ * list, the eight best completions. ranked gives one word in ten a
+ * frequency, so the frequent words are read on top of the first ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CompletionBenchmark {
+
+	static final int PREFIXES = 256;
+
+	@Param({ "false", "true" })
+	public boolean ranked;
+
+	private PrefixIndex index;
+	private String[] prefixes;
+
+	@Setup
+	public void setup() throws IOException {
+		SpellDictionary dictionary = new SpellDictionary(new StringReader(Corpus.wordListText()));
+		index = dictionary.getPrefixIndex();
+		if (ranked) {
+			Random random = new Random(Corpus.SEED);
+			List words = Corpus.words();
+			for (int i = 0; i < words.size(); i += 10)
+				index.setFrequency((String) words.get(i), 1 + random.nextInt(100));
+		}
+		prefixes = Corpus.sample(PREFIXES, 4, 12, Corpus.SEED);
+		for (int i = 0; i < prefixes.length; i++)
+			prefixes[i] = prefixes[i].substring(0, 3);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PREFIXES)
+	public int getCompletions() {
+		int found = 0;
+		for (int i = 0; i < prefixes.length; i++)
+			found += index.getCompletions(prefixes[i], 8).size();
+		return found;
+	}
+}
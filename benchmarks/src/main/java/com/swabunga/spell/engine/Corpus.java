@@ -0,0 +1,116 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The words the benchmarks work on.
+ * <p>
+ * Everything is drawn from the english word list with fixed seeds, so every
+ * run and every machine measures the same words. Misspellings are made by
+ * applying random single edits (delete, insert, substitute, swap) until
+ * the result is not in the word list.
+ * </p>
+ */
+public final class Corpus {
+
+	/** The seed of every corpus*/
+	public static final long SEED = 0x5EED;
+
+	/** The word list resource, as used by SpellDictionary*/
+	public static final String WORD_LIST = "/com/swabunga/spell/engine/dictionary/english";
+
+	private static List words;
+	private static String text;
+
+	private Corpus() {
+	}
+
+	/** Returns the word list as one String, one word per line*/
+	public static synchronized String wordListText() throws IOException {
+		if (text == null) {
+			StringBuilder buffer = new StringBuilder(512 * 1024);
+			BufferedReader in = new BufferedReader(new InputStreamReader(Corpus.class.getResourceAsStream(WORD_LIST)));
+			try {
+				String line;
+				while ((line = in.readLine()) != null)
+					buffer.append(line).append('\n');
+			} finally {
+				in.close();
+			}
+			text = buffer.toString();
+		}
+		return text;
+	}
+
+	/** Returns the words of the word list*/
+	public static synchronized List words() throws IOException {
+		if (words == null) {
+			ArrayList list = new ArrayList(50000);
+			StringTokenizer lines = new StringTokenizer(wordListText(), "\n");
+			while (lines.hasMoreTokens())
+				list.add(lines.nextToken());
+			words = Collections.unmodifiableList(list);
+		}
+		return words;
+	}
+
+	/** Returns count words of the word list, drawn with the given seed*/
+	public static String[] sample(int count, long seed) throws IOException {
+		return sample(count, 1, Integer.MAX_VALUE, seed);
+	}
+
+	/** Returns count words of minLength to maxLength characters, drawn with the given seed*/
+	public static String[] sample(int count, int minLength, int maxLength, long seed) throws IOException {
+		List all = words();
+		ArrayList fitting = new ArrayList();
+		for (Iterator i = all.iterator(); i.hasNext();) {
+			String word = (String) i.next();
+			if (word.length() >= minLength && word.length() <= maxLength)
+				fitting.add(word);
+		}
+		Random random = new Random(seed);
+		String[] result = new String[count];
+		for (int i = 0; i < count; i++)
+			result[i] = (String) fitting.get(random.nextInt(fitting.size()));
+		return result;
+	}
+
+	/** Returns a misspelling of each word, made with the given seed*/
+	public static String[] misspell(String[] correct, long seed) throws IOException {
+		HashSet known = new HashSet(words());
+		Random random = new Random(seed);
+		String[] result = new String[correct.length];
+		for (int i = 0; i < correct.length; i++) {
+			String word = correct[i];
+			do {
+				word = edit(word, random);
+			} while (known.contains(word));
+			result[i] = word;
+		}
+		return result;
+	}
+
+	private static String edit(String word, Random random) {
+		StringBuilder buffer = new StringBuilder(word);
+		int position = random.nextInt(word.length());
+		char letter = (char) ('a' + random.nextInt(26));
+		switch (word.length() > 1 ? random.nextInt(4) : 1) {
+			case 0:
+				buffer.deleteCharAt(position);
+				break;
+			case 1:
+				buffer.insert(position, letter);
+				break;
+			case 2:
+				buffer.setCharAt(position, letter);
+				break;
+			default:
+				if (position == word.length() - 1)
+					position--;
+				buffer.setCharAt(position, word.charAt(position + 1));
+				buffer.setCharAt(position + 1, word.charAt(position));
+		}
+		return buffer.toString();
+	}
+}
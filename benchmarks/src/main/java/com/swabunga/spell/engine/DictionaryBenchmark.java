@@ -0,0 +1,28 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Building a SpellDictionary from the english word list. The list is read
+ * into memory first, so the phonetic coding and the hashing are measured,
+ * not the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DictionaryBenchmark {
+
+	private String wordList;
+
+	@Setup
+	public void setup() throws IOException {
+		wordList = Corpus.wordListText();
+	}
+
+	@Benchmark
+	public SpellDictionary load() throws IOException {
+		return new SpellDictionary(new StringReader(wordList));
+	}
+}
@@ -0,0 +1,48 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.lang.management.*;
+
+/**
+ * Measures the heap a SpellDictionary of the english word list keeps.
+ * <p>
+ * Not a JMH benchmark: the used heap is read after full collections
+ * before and after the dictionary is built, while the dictionary is still
+ * reachable. getEstimatedMemory, which adds up what the dictionary should
+ * hold, is printed next to it. Run with a fixed heap so the collector does
+ * not resize it:
+ * </p>
+ * <pre>
+ * java -Xms256m -Xmx256m -cp target/benchmarks.jar com.swabunga.spell.engine.DictionaryFootprint
+ * </pre>
+ */
+public final class DictionaryFootprint {
+
+	private DictionaryFootprint() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		// The word list text, the classes and statics the engine sets up on
+		// first use and the management beans are not part of the dictionary
+		String text = Corpus.wordListText();
+		new SpellDictionary(new StringReader("warm up")).isCorrect("warm");
+		usedHeap();
+		long before = usedHeap();
+		SpellDictionary dictionary = new SpellDictionary(new StringReader(text));
+		long after = usedHeap();
+		int words = 0;
+		for (java.util.Iterator i = dictionary.wordIterator(); i.hasNext(); i.next())
+			words++;
+		System.out.println("Words:     " + words);
+		System.out.println("Retained:  " + (after - before) / 1024 + " KB");
+		System.out.println("Estimated: " + dictionary.getEstimatedMemory() / 1024 + " KB");
+		System.out.println("Per word:  " + (after - before) / words + " bytes");
+	}
+
+	private static long usedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 5; i++)
+			memory.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
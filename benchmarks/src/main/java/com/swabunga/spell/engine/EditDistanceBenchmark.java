@@ -0,0 +1,93 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * EditDistance.getDistance between words and misspellings of them, by word
+ * length. The bounded DistanceScorer call used for suggestions is measured
+ * alongside. Each invocation scores PAIRS pairs.
+ * <p>
+ * The candidates benchmarks score each misspelling against LANES words of
+ * its length, one of them the right one, with DistanceScorer one at a time
+ * and with BatchDistanceScorer all together.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EditDistanceBenchmark {
+
+	static final int PAIRS = 256;
+
+	/** short: 2 to 5 characters, medium: 6 to 9, long: 10 and more*/
+	@Param({ "short", "medium", "long" })
+	public String length;
+
+	private String[] words;
+	private String[] similar;
+	private String[][] candidates;
+	private DistanceScorer scorer;
+	private BatchDistanceScorer batchScorer;
+	private int[] distances = new int[BatchDistanceScorer.LANES];
+	private int limit;
+
+	@Setup
+	public void setup() throws IOException {
+		int min = length.equals("short") ? 2 : length.equals("medium") ? 6 : 10;
+		int max = length.equals("short") ? 5 : length.equals("medium") ? 9 : Integer.MAX_VALUE;
+		words = Corpus.sample(PAIRS, min, max, Corpus.SEED + 2);
+		similar = Corpus.misspell(words, Corpus.SEED + 2);
+		ConfigurationSnapshot config = Configuration.getSnapshot();
+		candidates = new String[PAIRS][];
+		for (int i = 0; i < PAIRS; i++) {
+			candidates[i] = Corpus.sample(BatchDistanceScorer.LANES, words[i].length(), words[i].length(), Corpus.SEED + 3 + i);
+			candidates[i][i % BatchDistanceScorer.LANES] = words[i];
+		}
+		scorer = new DistanceScorer(config);
+		batchScorer = new BatchDistanceScorer(config);
+		limit = config.getThreshold() - 1;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public int getDistance() {
+		int sum = 0;
+		for (int i = 0; i < words.length; i++)
+			sum += EditDistance.getDistance(words[i], similar[i]);
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public int getDistanceBounded() {
+		int sum = 0;
+		for (int i = 0; i < words.length; i++)
+			sum += scorer.getDistance(words[i], similar[i], limit);
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS * BatchDistanceScorer.LANES)
+	public int scoreCandidates() {
+		int sum = 0;
+		for (int i = 0; i < similar.length; i++) {
+			for (int k = 0; k < BatchDistanceScorer.LANES; k++)
+				sum += scorer.getDistance(similar[i], candidates[i][k], limit);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS * BatchDistanceScorer.LANES)
+	public int scoreCandidatesBatch() {
+		int sum = 0;
+		for (int i = 0; i < similar.length; i++) {
+			batchScorer.getDistances(similar[i], candidates[i], BatchDistanceScorer.LANES, limit, distances);
+			for (int k = 0; k < BatchDistanceScorer.LANES; k++)
+				sum += distances[k];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,55 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * SpellDictionary.isCorrect on words of the list (hit) and on misspellings
+ * of them (miss). Each invocation looks up WORDS words. bloomFilter is the
+ * false positive rate of the Bloom filter in front of isCorrect, 0 for none.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+	static final int WORDS = 1024;
+
+	@Param({ "0", "0.01" })
+	public double bloomFilter;
+
+	private SpellDictionary dictionary;
+	private String[] hits;
+	private String[] misses;
+
+	@Setup
+	public void setup() throws IOException {
+		dictionary = new SpellDictionary(new StringReader(Corpus.wordListText()));
+		if (bloomFilter > 0)
+			dictionary.enableBloomFilter(bloomFilter);
+		hits = Corpus.sample(WORDS, Corpus.SEED);
+		misses = Corpus.misspell(hits, Corpus.SEED);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int isCorrectHit() {
+		return count(hits);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int isCorrectMiss() {
+		return count(misses);
+	}
+
+	private int count(String[] words) {
+		int correct = 0;
+		for (int i = 0; i < words.length; i++) {
+			if (dictionary.isCorrect(words[i]))
+				correct++;
+		}
+		return correct;
+	}
+}
@@ -0,0 +1,49 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * getSuggestions for misspelt words at several thresholds, from the
+ * phonetic buckets of SpellDictionary, from the symmetric delete index and
+ * from the trie walk.
+ * Each invocation asks for the suggestions of WORDS words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SuggestionBenchmark {
+
+	static final int WORDS = 64;
+
+	@Param({ "100", "140", "200" })
+	public int threshold;
+
+	@Param({ "phonetic", "symspell", "trie" })
+	public String engine;
+
+	private SuggestionEngine suggestions;
+	private String[] misspelt;
+
+	@Setup
+	public void setup() throws IOException {
+		SpellDictionary dictionary = new SpellDictionary(new StringReader(Corpus.wordListText()));
+		if (engine.equals("symspell"))
+			suggestions = new SymSpellSuggestionEngine(dictionary);
+		else if (engine.equals("trie"))
+			suggestions = new TrieSuggestionEngine(dictionary);
+		else
+			suggestions = dictionary;
+		misspelt = Corpus.misspell(Corpus.sample(WORDS, Corpus.SEED + 1), Corpus.SEED + 1);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int getSuggestions() {
+		int found = 0;
+		for (int i = 0; i < misspelt.length; i++)
+			found += suggestions.getSuggestions(misspelt[i], threshold).size();
+		return found;
+	}
+}
@@ -0,0 +1,66 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The phonetic transformations: DoubleMeta, DoubleMetaEncoder and a
+ * GenericTransformator loaded with aspell style rules (phonet.dat).
+ * Each invocation transforms WORDS words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class TransformBenchmark {
+
+	static final int WORDS = 1024;
+
+	private String[] words;
+	private Transformator doubleMeta;
+	private Transformator doubleMetaEncoder;
+	private Transformator generic;
+
+	@Setup
+	public void setup() throws IOException {
+		words = Corpus.sample(WORDS, Corpus.SEED + 3);
+		doubleMeta = new DoubleMeta();
+		doubleMetaEncoder = new DoubleMetaEncoder();
+		// GenericTransformator reads a File, copy the rules out of the jar
+		File rules = File.createTempFile("phonet", ".dat");
+		rules.deleteOnExit();
+		InputStream in = TransformBenchmark.class.getResourceAsStream("phonet.dat");
+		try {
+			Files.copy(in, rules.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			in.close();
+		}
+		generic = new GenericTransformator(rules);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int doubleMeta() {
+		return transform(doubleMeta);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int doubleMetaEncoder() {
+		return transform(doubleMetaEncoder);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int genericTransformator() {
+		return transform(generic);
+	}
+
+	private int transform(Transformator transformator) {
+		int length = 0;
+		for (int i = 0; i < words.length; i++)
+			length += transformator.transform(words[i]).length();
+		return length;
+	}
+}
@@ -585,6 +585,8 @@ public class EkitCore extends JPanel implements ActionListener, KeyListener, Foc
 			jMenuTools = new JMenu(Translatrix.getTranslationString("Tools"));
 			htMenus.put(KEY_MENU_TOOLS, jMenuTools);
 			JMenuItem jmiSpellcheck = new JMenuItem(Translatrix.getTranslationString("ToolSpellcheck")); jmiSpellcheck.setActionCommand(CMD_SPELLCHECK); jmiSpellcheck.addActionListener(this); jMenuTools.add(jmiSpellcheck);
+			JCheckBoxMenuItem jcbmiSpellcheckBackground = new JCheckBoxMenuItem(Translatrix.getTranslationString("ToolSpellcheckBackground"), false); jcbmiSpellcheckBackground.setActionCommand(CMD_SPELLCHECK_BACKGROUND); jcbmiSpellcheckBackground.addActionListener(this); jMenuTools.add(jcbmiSpellcheckBackground);
+			JCheckBoxMenuItem jcbmiWordCompletion = new JCheckBoxMenuItem(Translatrix.getTranslationString("ToolWordCompletion"), false); jcbmiWordCompletion.setActionCommand(CMD_WORD_COMPLETION); jcbmiWordCompletion.addActionListener(this); jMenuTools.add(jcbmiWordCompletion);
 		}
 
 		/* SEARCH Menu */
@@ -1339,6 +1341,14 @@ public class EkitCore extends JPanel implements ActionListener, KeyListener, Foc
 			{
 				checkDocumentSpelling(jtpMain.getDocument());
 			}
+			else if(command.equals(CMD_SPELLCHECK_BACKGROUND))
+			{
+				setBackgroundSpellChecking(((JCheckBoxMenuItem)(ae.getSource())).isSelected());
+			}
+			else if(command.equals(CMD_WORD_COMPLETION))
+			{
+				setWordCompletion(((JCheckBoxMenuItem)(ae.getSource())).isSelected());
+			}
 		}
 		catch(IOException ioe)
 		{
@@ -2355,6 +2365,14 @@ public class EkitCore extends JPanel implements ActionListener, KeyListener, Foc
 	  */
 	public void checkDocumentSpelling(Document doc) { ; }
 
+	/** Empty background spell check method, overwritten by spell checker extension class
+	  */
+	public void setBackgroundSpellChecking(boolean enabled) { ; }
+
+	/** Empty word completion method, overwritten by spell checker extension class
+	  */
+	public void setWordCompletion(boolean enabled) { ; }
+
 	/** Method for saving text as a complete HTML document
 	  */
 	public void writeOut(HTMLDocument doc, File whatFile)
@@ -20,16 +20,22 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 */
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.SwingUtilities;
 import javax.swing.text.Document;
 import javax.swing.text.StyledDocument;
 
 import com.hexidec.ekit.dialogs.DialogFactory;
+import com.hexidec.ekit.dialogs.SimpleInfoDialog;
 import com.hexidec.util.Translatrix;
 
 import com.swabunga.spell.engine.*;
 import com.swabunga.spell.event.*;
 import com.swabunga.spell.swing.*;
 
+import static com.hexidec.ekit.editor.Command.*;
 import static com.hexidec.ekit.editor.Toolbar.*;
 
 /** com.hexidec.ekit.EkitCoreSpell
@@ -46,9 +52,22 @@ import static com.hexidec.ekit.editor.Toolbar.*;
 public class EkitCoreSpell extends EkitCore implements SpellCheckListener
 {
 	/* Spell Checker Settings */
+	/** The number of suggestions offered in the spell check dialog */
+	private static final int SUGGESTION_COUNT = 10;
 	private static String dictFile;
+	private SpellDictionary dictionary = null;
 	private SpellChecker spellCheck = null;
 	private JSpellDialog spellDialog;
+	private BackgroundSpellChecker backgroundCheck = null;
+	private WordCompleter wordCompleter = null;
+	/* Completes once the dictionary is loaded, see getSpellDictionary */
+	private CompletableFuture<SpellDictionary> dictionaryLoad = null;
+	/* A document whose check was asked for while the dictionary was loading */
+	private Document queuedCheck = null;
+	/* Whether background checking was asked for while the dictionary was loading */
+	private boolean backgroundWanted = false;
+	/* Whether word completion was asked for while the dictionary was loading */
+	private boolean completionWanted = false;
 
 	/** Master Constructor
 	  * @param sDocument         [String]  A text or HTML document to load in the editor upon startup.
@@ -72,18 +91,9 @@ public class EkitCoreSpell extends EkitCore implements SpellCheckListener
 	{
 		super(isParentApplet, sDocument, sStyleSheet, sRawDocument, sdocSource, urlStyleSheet, includeToolBar, showViewSource, showMenuIcons, editModeExclusive, sLanguage, sCountry, base64, debugMode, true, multiBar, toolbarSeq, enterBreak, "Ekit");
 
-		/* Create spell checker */
-		try
-		{
-			dictFile = Translatrix.getTranslationString("DictionaryFile");
-			SpellDictionary dictionary = new SpellDictionary(dictFile); // uses my custom loader in SpellDictionary
-			spellCheck = new SpellChecker(dictionary);
-			spellCheck.addSpellCheckListener(this);
-		}
-		catch(Exception e)
-		{
-			e.printStackTrace();
-		}
+		/* Create spell checker, once the dictionary is loaded in the background */
+		dictFile = Translatrix.getTranslationString("DictionaryFile");
+		dictionaryLoad = loadDictionary(dictFile);
 		spellDialog = DialogFactory.getInstance().newSpellDialog(this.getFrame(), Translatrix.getTranslationString("ToolSpellcheckDialog"), true);
 	}
 
@@ -117,6 +127,113 @@ public class EkitCoreSpell extends EkitCore implements SpellCheckListener
 		this(false);
 	}
 
+	/** Creates the dictionary and loads its default word list on a
+	  * background thread, so the editor does not wait for it. The spell
+	  * check menu item says it is loading until it is done.
+	  */
+	private CompletableFuture<SpellDictionary> loadDictionary(final String wordList)
+	{
+		final CompletableFuture<SpellDictionary> load = new CompletableFuture<>();
+		Thread loader = new Thread(() -> {
+			try
+			{
+				// Other word lists are loaded per document language when first needed, and shared by all editors in this JVM
+				LayeredSpellDictionary layered = new LayeredSpellDictionary(wordList);
+				layered.load(null);
+				layered.getPrefixIndex(); // built here rather than on the event dispatch thread when completion starts
+				load.complete(layered);
+			}
+			catch(Throwable t)
+			{
+				load.completeExceptionally(t);
+			}
+		}, "Ekit dictionary loader");
+		loader.setDaemon(true);
+		setSpellcheckLabel("ToolSpellcheckLoading");
+		loader.start();
+		load.whenComplete((loaded, failure) -> SwingUtilities.invokeLater(() -> dictionaryLoaded(loaded, failure)));
+		return load;
+	}
+
+	/* Runs on the event dispatch thread once the dictionary is loaded or failed to */
+	private void dictionaryLoaded(SpellDictionary loaded, Throwable failure)
+	{
+		Document doc = queuedCheck;
+		queuedCheck = null;
+		if(failure != null)
+		{
+			System.err.println("Exception in loading the spellchecker dictionary");
+			failure.printStackTrace(System.err);
+			setSpellcheckLabel("ToolSpellcheckUnavailable");
+			if(doc != null)
+			{
+				showDictionaryFailure(); // the user is waiting for that check
+			}
+			return;
+		}
+		setSpellcheckLabel("ToolSpellcheck");
+		dictionary = loaded;
+		spellCheck = new SpellChecker(dictionary);
+		spellCheck.setSuggestionCount(SUGGESTION_COUNT);
+		spellCheck.addSpellCheckListener(this);
+		if(backgroundWanted)
+		{
+			setBackgroundSpellChecking(true);
+		}
+		if(completionWanted)
+		{
+			setWordCompletion(true);
+		}
+		if(doc != null)
+		{
+			checkDocumentSpelling(doc);
+		}
+	}
+
+	/* Tells the user the spell checker can not be used */
+	private void showDictionaryFailure()
+	{
+		DialogFactory.getInstance().newSimpleInfoDialog(this.getFrame(), Translatrix.getTranslationString("Error"), true, Translatrix.getTranslationString("ErrorSpellcheckDictionary"), SimpleInfoDialog.ERROR);
+	}
+
+	/* Shows on the spell check menu item whether the word list is loading, loaded or could not be loaded */
+	private void setSpellcheckLabel(String key)
+	{
+		JMenuItem item = getToolsItem(CMD_SPELLCHECK);
+		if(item != null)
+		{
+			item.setText(Translatrix.getTranslationString(key));
+		}
+	}
+
+	/* Returns the Tools menu item with the action command, or null */
+	private JMenuItem getToolsItem(String command)
+	{
+		JMenu tools = htMenus.get(KEY_MENU_TOOLS);
+		if(tools == null)
+		{
+			return null;
+		}
+		for(int i = 0; i < tools.getItemCount(); i++)
+		{
+			JMenuItem item = tools.getItem(i);
+			if(item != null && command.equals(item.getActionCommand()))
+			{
+				return item;
+			}
+		}
+		return null;
+	}
+
+	/** Returns the dictionary, completing once its default word list is
+	  * loaded. The spell checker is set up on the event dispatch thread
+	  * right after.
+	  */
+	public CompletableFuture<SpellDictionary> getSpellDictionary()
+	{
+		return dictionaryLoad;
+	}
+
 	/* SpellCheckListener methods */
 	public void spellingError(SpellCheckEvent event)
 	{
@@ -126,7 +243,101 @@ public class EkitCoreSpell extends EkitCore implements SpellCheckListener
 	/* Spell checking method (overrides empty method in basic core) */
 	public void checkDocumentSpelling(Document doc)
 	{
+		if(dictionaryLoad.isCompletedExceptionally())
+		{
+			showDictionaryFailure();
+			return;
+		}
+		if(spellCheck == null)
+		{
+			queuedCheck = doc; // checked as soon as the dictionary is loaded
+			return;
+		}
 		spellCheck.checkSpelling(new DocumentWordTokenizer(doc));
+		if(backgroundCheck != null && backgroundCheck.isRunning())
+		{
+			backgroundCheck.recheckAll(); // words may have been added to the dictionary
+		}
+	}
+
+	/** Turns continuous spell checking of the text pane on or off.
+	  * Misspelt words are underlined while the user types.
+	  */
+	public void setBackgroundSpellChecking(boolean enabled)
+	{
+		JMenuItem item = getToolsItem(CMD_SPELLCHECK_BACKGROUND);
+		if(item != null)
+		{
+			item.setSelected(enabled);
+		}
+		if(dictionary == null)
+		{
+			backgroundWanted = enabled; // started once the dictionary is loaded
+			return;
+		}
+		if(backgroundCheck == null)
+		{
+			backgroundCheck = new BackgroundSpellChecker(getTextPane(), dictionary);
+		}
+		if(enabled)
+		{
+			backgroundCheck.start();
+		}
+		else
+		{
+			backgroundCheck.stop();
+		}
+	}
+
+	/** Returns true if the text pane is being spell checked continuously
+	  */
+	public boolean isBackgroundSpellChecking()
+	{
+		if(dictionary == null)
+		{
+			return backgroundWanted;
+		}
+		return backgroundCheck != null && backgroundCheck.isRunning();
+	}
+
+	/** Turns completion of the word being typed in the text pane on or off.
+	  * Completions come from the dictionary and the words added to it.
+	  */
+	public void setWordCompletion(boolean enabled)
+	{
+		JMenuItem item = getToolsItem(CMD_WORD_COMPLETION);
+		if(item != null)
+		{
+			item.setSelected(enabled);
+		}
+		if(dictionary == null)
+		{
+			completionWanted = enabled; // started once the dictionary is loaded
+			return;
+		}
+		if(wordCompleter == null)
+		{
+			wordCompleter = new WordCompleter(getTextPane(), dictionary.getPrefixIndex());
+		}
+		if(enabled)
+		{
+			wordCompleter.start();
+		}
+		else
+		{
+			wordCompleter.stop();
+		}
+	}
+
+	/** Returns true if words typed in the text pane are being completed
+	  */
+	public boolean isWordCompletion()
+	{
+		if(dictionary == null)
+		{
+			return completionWanted;
+		}
+		return wordCompleter != null && wordCompleter.isRunning();
 	}
 
 }
@@ -60,6 +60,8 @@ public class Command {
     public static final String CMD_ENTER_PARAGRAPH = "enterkeyparag";
     public static final String CMD_ENTER_BREAK = "enterkeybreak";
     public static final String CMD_SPELLCHECK = "spellcheck";
+    public static final String CMD_SPELLCHECK_BACKGROUND = "spellcheckbackground";
+    public static final String CMD_WORD_COMPLETION = "wordcompletion";
     public static final String CMD_HELP_ABOUT = "helpabout";
     public static final String CMD_DEBUG_DESCRIBE_DOC = "describedoc";
     public static final String CMD_DEBUG_DESCRIBE_CSS = "describecss";
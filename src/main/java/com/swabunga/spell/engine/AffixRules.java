@@ -0,0 +1,388 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * The affix rules of a Hunspell or MySpell .aff file, as aspell also
+ * writes them.
+ * <p>
+ * SET, FLAG, AF, PFX, SFX, NEEDAFFIX (and its old name PSEUDOROOT) and
+ * FORBIDDENWORD are read. The other keywords, for compounds, suggestions,
+ * morphology and so on, are skipped. Flags are kept as a char whatever the
+ * FLAG type: a long flag of two chars below 256 is packed into one, a num
+ * flag is its number. 0 is no flag.
+ * </p>
+ */
+final class AffixRules {
+
+	/** The encoding of the files when the .aff does not SET one*/
+	private static final String DEFAULT_CHARSET = "ISO-8859-1";
+
+	private static final int FLAG_CHAR = 0;
+	private static final int FLAG_LONG = 1;
+	private static final int FLAG_NUM = 2;
+
+	private Charset charset;
+	private int flagType = FLAG_CHAR;
+	/** The flag sets of AF, numbered from 1 in the files*/
+	private ArrayList aliases = new ArrayList();
+	char needAffix = 0;
+	char forbidden = 0;
+
+	/** Last char of the suffix (Character) to Affix[], the empty suffixes included*/
+	private final HashMap suffixes = new HashMap();
+	/** First char of the prefix (Character) to Affix[], the empty prefixes included*/
+	private final HashMap prefixes = new HashMap();
+	/** The suffixes and prefixes without chars*/
+	private Affix[] emptySuffixes;
+	private Affix[] emptyPrefixes;
+	/** Flag (Character) to the Affix[] of the flag*/
+	private final HashMap byFlag = new HashMap();
+	/** The flags (Character) that are continuation flags of some affix*/
+	private final HashSet continued = new HashSet();
+	private int affixCount = 0;
+
+	/** One PFX or SFX line*/
+	static final class Affix {
+		final char flag;
+		final boolean prefix;
+		/** Whether the affix combines with one of the other kind*/
+		final boolean cross;
+		/** Taken off the stem before the affix is put on*/
+		final String strip;
+		final String affix;
+		/** The flags of the affixes that can go on top of this one*/
+		final char[] continuation;
+		/** Per condition position the chars that match, null for any char*/
+		private final char[][] allowed;
+		private final boolean[] negated;
+
+		Affix(char flag, boolean prefix, boolean cross, String strip, String affix, char[] continuation,
+				String condition) throws IOException {
+			this.flag = flag;
+			this.prefix = prefix;
+			this.cross = cross;
+			this.strip = strip;
+			this.affix = affix;
+			this.continuation = continuation;
+			ArrayList sets = new ArrayList();
+			ArrayList negations = new ArrayList();
+			for (int i = 0; i < condition.length(); i++) {
+				char ch = condition.charAt(i);
+				if (ch == '[') {
+					int end = condition.indexOf(']', i);
+					if (end < 0)
+						throw new IOException("Unclosed [ in the affix condition " + condition);
+					boolean not = end > i + 1 && condition.charAt(i + 1) == '^';
+					sets.add(condition.substring(not ? i + 2 : i + 1, end).toCharArray());
+					negations.add(Boolean.valueOf(not));
+					i = end;
+				} else {
+					sets.add((ch == '.') ? null : new char[] { ch });
+					negations.add(Boolean.FALSE);
+				}
+			}
+			allowed = (char[][]) sets.toArray(new char[sets.size()][]);
+			negated = new boolean[allowed.length];
+			for (int i = 0; i < negated.length; i++)
+				negated[i] = ((Boolean) negations.get(i)).booleanValue();
+		}
+
+		/**
+		 * Returns true if the condition matches the stem, at its start for a
+		 * prefix and at its end for a suffix.
+		 */
+		boolean matches(String stem) {
+			if (stem.length() < allowed.length)
+				return false;
+			int offset = prefix ? 0 : stem.length() - allowed.length;
+			for (int i = 0; i < allowed.length; i++) {
+				if (allowed[i] != null && contains(allowed[i], stem.charAt(offset + i)) == negated[i])
+					return false;
+			}
+			return true;
+		}
+
+		/** Returns true if the affix is on the word and leaves some of it*/
+		boolean isOn(String word) {
+			return word.length() > affix.length() && (prefix ? word.startsWith(affix) : word.endsWith(affix));
+		}
+
+		/** Returns the stem of a word the affix is on, see isOn*/
+		String remove(String word) {
+			if (prefix)
+				return strip + word.substring(affix.length());
+			return word.substring(0, word.length() - affix.length()) + strip;
+		}
+
+		/**
+		 * Returns the stem with the affix on, or null if it does not take it.
+		 * Some of the stem must be left after the strip, as isOn expects.
+		 */
+		String apply(String stem) {
+			if (!matches(stem) || stem.length() <= strip.length())
+				return null;
+			if (prefix)
+				return stem.startsWith(strip) ? affix + stem.substring(strip.length()) : null;
+			return stem.endsWith(strip) ? stem.substring(0, stem.length() - strip.length()) + affix : null;
+		}
+
+		private static boolean contains(char[] chars, char ch) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == ch)
+					return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the rules. The file is read as ISO-8859-1 to find its SET, then
+	 * again in that encoding.
+	 */
+	AffixRules(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for (int n; (n = in.read(buffer)) > 0;)
+			bytes.write(buffer, 0, n);
+		byte[] file = bytes.toByteArray();
+		charset = Charset.forName(DEFAULT_CHARSET);
+		BufferedReader lines = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(file), charset));
+		for (String line; (line = lines.readLine()) != null;) {
+			String[] tokens = tokens(line);
+			if (tokens.length > 1 && tokens[0].equals("SET")) {
+				charset = forName(tokens[1]);
+				break;
+			}
+		}
+		read(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(file), charset)));
+	}
+
+	/** Returns the charset of a SET, which uses the names of the ispell days*/
+	private static Charset forName(String name) throws IOException {
+		String[] tries = { name, name.replaceFirst("^ISO8859", "ISO-8859"), name.replaceFirst("^microsoft-", "windows-") };
+		for (int i = 0; i < tries.length; i++) {
+			try {
+				return Charset.forName(tries[i].replaceFirst("^windows-cp", "windows-"));
+			} catch (IllegalCharsetNameException e) {
+				//Try the next name
+			} catch (UnsupportedCharsetException e) {
+				//Try the next name
+			}
+		}
+		throw new IOException("Unsupported affix file encoding " + name);
+	}
+
+	private void read(BufferedReader in) throws IOException {
+		for (String line; (line = in.readLine()) != null;) {
+			String[] tokens = tokens(line);
+			if (tokens.length < 2)
+				continue;
+			String keyword = tokens[0];
+			if (keyword.equals("FLAG")) {
+				if (tokens[1].equals("long"))
+					flagType = FLAG_LONG;
+				else if (tokens[1].equals("num"))
+					flagType = FLAG_NUM;
+			} else if (keyword.equals("AF") && aliases.isEmpty()) {
+				int count = number(tokens[1]);
+				ArrayList read = new ArrayList();
+				for (int i = 0; i < count; i++) {
+					String[] alias = tokens(readLine(in, keyword));
+					read.add(parse((alias.length > 1) ? alias[1] : ""));
+				}
+				aliases = read;
+			} else if (keyword.equals("NEEDAFFIX") || keyword.equals("PSEUDOROOT")) {
+				needAffix = flag(tokens[1]);
+			} else if (keyword.equals("FORBIDDENWORD")) {
+				forbidden = flag(tokens[1]);
+			} else if ((keyword.equals("PFX") || keyword.equals("SFX")) && tokens.length >= 4) {
+				readAffixes(in, keyword, tokens);
+			}
+		}
+		// The affixes without chars can be on any word
+		Object emptySuffixes = suffixes.remove(null);
+		Object emptyPrefixes = prefixes.remove(null);
+		freeze(suffixes, (ArrayList) emptySuffixes);
+		freeze(prefixes, (ArrayList) emptyPrefixes);
+		freeze(byFlag, null);
+		this.emptySuffixes = toArray((ArrayList) emptySuffixes);
+		this.emptyPrefixes = toArray((ArrayList) emptyPrefixes);
+	}
+
+	/** Reads the lines of a PFX or SFX header*/
+	private void readAffixes(BufferedReader in, String keyword, String[] header) throws IOException {
+		boolean prefix = keyword.equals("PFX");
+		char flag = flag(header[1]);
+		boolean cross = header[2].equals("Y");
+		int count = number(header[3]);
+		for (int i = 0; i < count; i++) {
+			String[] tokens = tokens(readLine(in, keyword));
+			if (tokens.length < 4 || !tokens[0].equals(keyword))
+				throw new IOException("Expected " + count + " " + keyword + " " + header[1] + " lines");
+			String strip = tokens[2].equals("0") ? "" : tokens[2];
+			String affix = tokens[3];
+			char[] continuation = new char[0];
+			int slash = affix.indexOf('/');
+			if (slash >= 0) {
+				continuation = parse(affix.substring(slash + 1));
+				affix = affix.substring(0, slash);
+				for (int c = 0; c < continuation.length; c++)
+					continued.add(Character.valueOf(continuation[c]));
+			}
+			if (affix.equals("0"))
+				affix = "";
+			String condition = (tokens.length > 4) ? tokens[4] : ".";
+			Affix entry = new Affix(flag, prefix, cross, strip, affix, continuation, condition);
+			Character key = affix.isEmpty() ? null : Character.valueOf(affix.charAt(prefix ? 0 : affix.length() - 1));
+			add(prefix ? prefixes : suffixes, key, entry);
+			add(byFlag, Character.valueOf(flag), entry);
+			affixCount++;
+		}
+	}
+
+	private static String readLine(BufferedReader in, String keyword) throws IOException {
+		String line = in.readLine();
+		if (line == null)
+			throw new IOException("The affix file ends in the " + keyword + " lines");
+		return line;
+	}
+
+	private static String[] tokens(String line) {
+		line = line.trim();
+		if (line.length() > 0 && line.charAt(0) == '\uFEFF')
+			line = line.substring(1);
+		if (line.length() == 0 || line.charAt(0) == '#')
+			return new String[0];
+		return line.split("\\s+");
+	}
+
+	private static int number(String token) throws IOException {
+		try {
+			return Integer.parseInt(token);
+		} catch (NumberFormatException e) {
+			throw new IOException("Expected a number in the affix file, not " + token);
+		}
+	}
+
+	/** Collects the affixes of each key into a list while reading*/
+	private static void add(HashMap map, Character key, Affix affix) {
+		ArrayList list = (ArrayList) map.get(key);
+		if (list == null) {
+			list = new ArrayList();
+			map.put(key, list);
+		}
+		list.add(affix);
+	}
+
+	/** Turns the lists of the map into arrays, each followed by the common affixes*/
+	private static void freeze(HashMap map, ArrayList common) {
+		for (Iterator i = map.entrySet().iterator(); i.hasNext();) {
+			Map.Entry entry = (Map.Entry) i.next();
+			ArrayList list = (ArrayList) entry.getValue();
+			if (common != null)
+				list.addAll(common);
+			entry.setValue(toArray(list));
+		}
+	}
+
+	private static Affix[] toArray(ArrayList list) {
+		return (list == null) ? new Affix[0] : (Affix[]) list.toArray(new Affix[list.size()]);
+	}
+
+	/** Returns the encoding of the .aff and .dic files*/
+	Charset getCharset() {
+		return charset;
+	}
+
+	/** Returns the chars of the affixes and strips*/
+	BitSet getChars() {
+		BitSet chars = new BitSet();
+		for (Iterator i = byFlag.values().iterator(); i.hasNext();) {
+			Affix[] affixes = (Affix[]) i.next();
+			for (int a = 0; a < affixes.length; a++) {
+				String both = affixes[a].affix + affixes[a].strip;
+				for (int c = 0; c < both.length(); c++)
+					chars.set(both.charAt(c));
+			}
+		}
+		return chars;
+	}
+
+	/** Returns the number of PFX and SFX lines*/
+	int getAffixCount() {
+		return affixCount;
+	}
+
+	/**
+	 * Returns the flags of a .dic word or an affix continuation, which is an
+	 * AF number where the file has aliases.
+	 */
+	char[] parse(String flags) throws IOException {
+		if (!aliases.isEmpty() && flags.length() > 0 && Character.isDigit(flags.charAt(0))) {
+			int alias = number(flags);
+			if (alias < 1 || alias > aliases.size())
+				throw new IOException("No AF alias " + flags);
+			return (char[]) aliases.get(alias - 1);
+		}
+		if (flagType == FLAG_NUM) {
+			if (flags.length() == 0)
+				return new char[0];
+			String[] numbers = flags.split(",");
+			char[] parsed = new char[numbers.length];
+			for (int i = 0; i < numbers.length; i++)
+				parsed[i] = flag(numbers[i]);
+			return parsed;
+		}
+		if (flagType == FLAG_LONG) {
+			char[] parsed = new char[flags.length() / 2];
+			for (int i = 0; i < parsed.length; i++)
+				parsed[i] = flag(flags.substring(2 * i, 2 * i + 2));
+			return parsed;
+		}
+		return flags.toCharArray();
+	}
+
+	/** Returns a single flag*/
+	private char flag(String flag) throws IOException {
+		if (flagType == FLAG_NUM) {
+			int number = number(flag);
+			if (number < 1 || number > Character.MAX_VALUE)
+				throw new IOException("Flag out of range: " + flag);
+			return (char) number;
+		}
+		if (flagType == FLAG_LONG) {
+			if (flag.length() != 2 || flag.charAt(0) > 0xFF || flag.charAt(1) > 0xFF)
+				throw new IOException("Not a long flag: " + flag);
+			return (char) (flag.charAt(0) << 8 | flag.charAt(1));
+		}
+		if (flag.length() == 0)
+			throw new IOException("Empty flag");
+		return flag.charAt(0);
+	}
+
+	/** Returns the suffixes that may be on the word, which must not be changed*/
+	Affix[] getSuffixes(String word) {
+		Affix[] keyed = (Affix[]) suffixes.get(Character.valueOf(word.charAt(word.length() - 1)));
+		return (keyed == null) ? emptySuffixes : keyed;
+	}
+
+	/** Returns the prefixes that may be on the word, which must not be changed*/
+	Affix[] getPrefixes(String word) {
+		Affix[] keyed = (Affix[]) prefixes.get(Character.valueOf(word.charAt(0)));
+		return (keyed == null) ? emptyPrefixes : keyed;
+	}
+
+	/** Returns the affixes of the flag*/
+	Affix[] getAffixes(char flag) {
+		Affix[] affixes = (Affix[]) byFlag.get(Character.valueOf(flag));
+		return (affixes == null) ? new Affix[0] : affixes;
+	}
+
+	/** Returns true if an affix can go on top of the affixes of the flag*/
+	boolean isContinued(char flag) {
+		return continued.contains(Character.valueOf(flag));
+	}
+}
@@ -0,0 +1,535 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A SpellDictionary read from a Hunspell, MySpell or aspell stem list
+ * (.dic) and its affix rules (.aff).
+ * <p>
+ * Only the stems are held, bucketed by their codes in a CompactWordList,
+ * with the flags of their affixes beside them. isCorrect works the other
+ * way round from the .aff: it takes each suffix or prefix the word ends or
+ * starts with off it and looks for a stem with the flag of that affix. So
+ * the inflected forms, of which an inflected language has ten or more per
+ * stem, are never stored.
+ * </p>
+ * <p>
+ * A word can have a prefix and a suffix where both combine, and two
+ * suffixes where the outer one is a continuation flag of the inner one.
+ * Stems flagged NEEDAFFIX are only words with an affix, words flagged
+ * FORBIDDENWORD are never correct. Compounding and the suggestion keywords
+ * of the .aff are not supported.
+ * </p>
+ * <p>
+ * getWords and wordIterator give the forms of the stems, worked out as
+ * they are asked for. getSuggestions also scores the forms of the stems
+ * the misspelt word could have, were its affix spelt right.
+ * </p>
+ */
+public class AffixSpellDictionary extends SpellDictionary {
+
+	private AffixRules rules;
+	/** The stems, bucketed by their codes*/
+	private CompactWordList stems;
+	/**
+	 * The flags of stem w are flags[flagStart[w]] to flags[flagStart[w + 1] - 1],
+	 * one set per entry of the stem in the .dic, each led by its length.
+	 */
+	private char[] flags;
+	private int[] flagStart;
+	/** The lower case chars of the stems and affixes, sorted, which getSuggestions tries in edits*/
+	private char[] alphabet;
+
+	/**
+	 * Reads a stem list and its affix rules, coding the stems with
+	 * DoubleMeta.
+	 */
+	public AffixSpellDictionary(File dictionary, File affixes) throws IOException {
+		super(new DoubleMetaEncoder());
+		load(dictionary, affixes);
+	}
+
+	/**
+	 * Reads a stem list and its affix rules, coding the stems with an
+	 * aspell phonetic file.
+	 */
+	public AffixSpellDictionary(File dictionary, File affixes, File phonetic) throws IOException {
+		super(new GenericTransformator(phonetic));
+		load(dictionary, affixes);
+	}
+
+	/**
+	 * Reads a stem list resource, such as "de_DE.dic", and the affix rules
+	 * resource of the same name ending in ".aff", from the dictionary
+	 * directory as SpellDictionary(String) does.
+	 */
+	public AffixSpellDictionary(String dictionaryResource) throws IOException {
+		super(new DoubleMetaEncoder());
+		String affixResource = dictionaryResource.replaceFirst("\\.dic$", "") + ".aff";
+		InputStream dic = SpellDictionary.class.getResourceAsStream("dictionary/" + dictionaryResource);
+		InputStream aff = SpellDictionary.class.getResourceAsStream("dictionary/" + affixResource);
+		try {
+			if (dic == null || aff == null)
+				throw new FileNotFoundException("No resource " + ((dic == null) ? dictionaryResource : affixResource));
+			load(dic, aff);
+		} finally {
+			if (dic != null)
+				dic.close();
+			if (aff != null)
+				aff.close();
+		}
+	}
+
+	private void load(File dictionary, File affixes) throws IOException {
+		InputStream dic = new FileInputStream(dictionary);
+		try {
+			InputStream aff = new FileInputStream(affixes);
+			try {
+				load(dic, aff);
+			} finally {
+				aff.close();
+			}
+		} finally {
+			dic.close();
+		}
+	}
+
+	private void load(InputStream dictionary, InputStream affixes) throws IOException {
+		long start = System.nanoTime();
+		rules = new AffixRules(affixes);
+		BufferedReader in = new BufferedReader(new InputStreamReader(dictionary, rules.getCharset()));
+		// Stem to the ArrayList of the flag sets of its entries
+		LinkedHashMap entries = new LinkedHashMap();
+		int count = 0;
+		for (String line; (line = in.readLine()) != null;) {
+			if (count == 0 && entries.isEmpty() && isNumber(line.trim()))
+				continue; // The number of entries, only a hint
+			if (line.length() == 0 || line.charAt(0) == '\t' || line.charAt(0) == '#')
+				continue;
+			String[] entry = split(line);
+			if (entry[0].length() == 0)
+				continue;
+			ArrayList sets = (ArrayList) entries.get(entry[0]);
+			if (sets == null) {
+				sets = new ArrayList(1);
+				entries.put(entry[0], sets);
+			}
+			sets.add(rules.parse(entry[1]));
+			count++;
+		}
+
+		// The code cache is bypassed, as SpellDictionary does for a word list
+		Transformator tf = getCodeCache().getTransformator();
+		CompactWordList.Builder builder = new CompactWordList.Builder();
+		BitSet chars = rules.getChars();
+		int length = 0;
+		for (Iterator i = entries.entrySet().iterator(); i.hasNext();) {
+			Map.Entry entry = (Map.Entry) i.next();
+			String stem = (String) entry.getKey();
+			builder.add(stem, tf.transform(stem));
+			for (int c = 0; c < stem.length(); c++)
+				chars.set(stem.charAt(c));
+			for (Iterator j = ((ArrayList) entry.getValue()).iterator(); j.hasNext();)
+				length += 1 + ((char[]) j.next()).length;
+		}
+		stems = builder.build();
+		// The builder puts the stems in code order, the flags follow them
+		flags = new char[length];
+		flagStart = new int[stems.size() + 1];
+		int pos = 0;
+		for (int w = 0; w < stems.size(); w++) {
+			flagStart[w] = pos;
+			for (Iterator j = ((ArrayList) entries.get(stems.getWord(w))).iterator(); j.hasNext();) {
+				char[] set = (char[]) j.next();
+				flags[pos++] = (char) set.length;
+				System.arraycopy(set, 0, flags, pos, set.length);
+				pos += set.length;
+			}
+		}
+		flagStart[stems.size()] = pos;
+		// Upper case is left to the lower case lookup of isCorrect
+		for (int c = chars.nextSetBit(0); c >= 0; c = chars.nextSetBit(c + 1)) {
+			if (Character.toLowerCase((char) c) != c)
+				chars.clear(c);
+		}
+		alphabet = new char[chars.cardinality()];
+		for (int c = chars.nextSetBit(0), i = 0; c >= 0; c = chars.nextSetBit(c + 1))
+			alphabet[i++] = (char) c;
+		SpellEngineStats.getInstance().recordLoad(System.nanoTime() - start, count, getEstimatedMemory());
+	}
+
+	private static boolean isNumber(String s) {
+		if (s.length() == 0)
+			return false;
+		for (int i = 0; i < s.length(); i++) {
+			if (!Character.isDigit(s.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Splits a .dic line into the word and its flags. A slash in the word
+	 * is escaped with a backslash, anything after white space is morphology.
+	 */
+	private static String[] split(String line) {
+		StringBuffer word = new StringBuffer();
+		int i = 0;
+		for (; i < line.length(); i++) {
+			char ch = line.charAt(i);
+			if (ch == '\\' && i + 1 < line.length() && line.charAt(i + 1) == '/') {
+				word.append('/');
+				i++;
+			} else if (ch == '/' || Character.isWhitespace(ch)) {
+				break;
+			} else {
+				word.append(ch);
+			}
+		}
+		int end = i;
+		if (i < line.length() && line.charAt(i) == '/') {
+			end = ++i;
+			while (end < line.length() && !Character.isWhitespace(line.charAt(end)))
+				end++;
+		}
+		return new String[] { word.toString(), line.substring(i, end) };
+	}
+
+	/**
+	 * Returns the number of distinct stems read from the stem list.
+	 */
+	public int getStemCount() {
+		return stems.size();
+	}
+
+	/**
+	 * Returns the number of PFX and SFX rules read from the affix file.
+	 */
+	public int getAffixCount() {
+		return rules.getAffixCount();
+	}
+
+	/**
+	 * Returns true if the word is correctly spelled against the stems and
+	 * their affixes, or is one of the added words.
+	 * <p>As in SpellDictionary the lower case of the word is also tried.</p>
+	 */
+	public boolean isCorrect(String word) {
+		if (word.length() == 0)
+			return false;
+		if (super.isCorrect(word) || check(word))
+			return true;
+		String lower = word.toLowerCase();
+		return !lower.equals(word) && check(lower);
+	}
+
+	/**
+	 * Looks the word up as a String, the affixes are taken off Strings.
+	 */
+	public boolean isCorrect(CharSequence word) {
+		return isCorrect(word.toString());
+	}
+
+	/**
+	 * Returns true if the word is a stem, or a stem with affixes it takes,
+	 * exactly as it is.
+	 */
+	protected boolean isListed(String word) {
+		return word.length() > 0 && check(word);
+	}
+
+	/** Returns true if the word is a stem, or a stem with affixes it takes*/
+	private boolean check(String word) {
+		int w = stems.indexOf(word);
+		if (w >= 0) {
+			if (isForbidden(w))
+				return false;
+			for (int pos = flagStart[w]; pos < flagStart[w + 1]; pos += 1 + flags[pos]) {
+				if (rules.needAffix == 0 || !contains(pos, rules.needAffix))
+					return true;
+			}
+		}
+		return checkSuffix(word, null, (char) 0) || checkPrefix(word);
+	}
+
+	/**
+	 * Returns true if the word is a stem with a suffix on it.
+	 *
+	 * @param prefix The prefix taken off the word before, which the stem
+	 * must take too, or null
+	 * @param outer The flag of a suffix taken off before, which must be a
+	 * continuation of this one, or 0
+	 */
+	private boolean checkSuffix(String word, AffixRules.Affix prefix, char outer) {
+		AffixRules.Affix[] suffixes = rules.getSuffixes(word);
+		for (int i = 0; i < suffixes.length; i++) {
+			AffixRules.Affix suffix = suffixes[i];
+			if (!suffix.isOn(word) || (prefix != null && !suffix.cross))
+				continue;
+			if (outer != 0 && !contains(suffix.continuation, outer))
+				continue;
+			String stem = suffix.remove(word);
+			if (!suffix.matches(stem))
+				continue;
+			if (isStem(stem, suffix.flag, (prefix == null) ? 0 : prefix.flag))
+				return true;
+			// A suffix on top of another one
+			if (outer == 0 && rules.isContinued(suffix.flag) && checkSuffix(stem, prefix, suffix.flag))
+				return true;
+		}
+		return false;
+	}
+
+	/** Returns true if the word is a stem with a prefix, and maybe a suffix, on it*/
+	private boolean checkPrefix(String word) {
+		AffixRules.Affix[] prefixes = rules.getPrefixes(word);
+		for (int i = 0; i < prefixes.length; i++) {
+			AffixRules.Affix prefix = prefixes[i];
+			if (!prefix.isOn(word))
+				continue;
+			String stem = prefix.remove(word);
+			if (!prefix.matches(stem))
+				continue;
+			if (isStem(stem, prefix.flag, (char) 0))
+				return true;
+			if (prefix.cross && checkSuffix(stem, prefix, (char) 0))
+				return true;
+		}
+		return false;
+	}
+
+	/** Returns true if the stem has an entry with both flags that is not forbidden, 0 being no flag*/
+	private boolean isStem(String stem, char flag, char other) {
+		int w = stems.indexOf(stem);
+		return w >= 0 && hasFlag(w, flag, other);
+	}
+
+	/** Returns true if an entry of stem w has both flags and is not forbidden*/
+	private boolean hasFlag(int w, char flag, char other) {
+		for (int pos = flagStart[w]; pos < flagStart[w + 1]; pos += 1 + flags[pos]) {
+			if (contains(pos, flag) && (other == 0 || contains(pos, other))
+				&& (rules.forbidden == 0 || !contains(pos, rules.forbidden)))
+				return true;
+		}
+		return false;
+	}
+
+	/** Returns true if an entry of stem w is flagged FORBIDDENWORD*/
+	private boolean isForbidden(int w) {
+		if (rules.forbidden == 0)
+			return false;
+		for (int pos = flagStart[w]; pos < flagStart[w + 1]; pos += 1 + flags[pos]) {
+			if (contains(pos, rules.forbidden))
+				return true;
+		}
+		return false;
+	}
+
+	/** Returns true if the flag set at pos has the flag*/
+	private boolean contains(int pos, char flag) {
+		for (int i = pos + 1, end = pos + 1 + flags[pos]; i < end; i++) {
+			if (flags[i] == flag)
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean contains(char[] set, char flag) {
+		for (int i = 0; i < set.length; i++) {
+			if (set[i] == flag)
+				return true;
+		}
+		return false;
+	}
+
+	/** Adds the words made from stem w, with every affix it takes, to the collection*/
+	private void addForms(int w, Collection out) {
+		String stem = stems.getWord(w);
+		for (int pos = flagStart[w]; pos < flagStart[w + 1]; pos += 1 + flags[pos]) {
+			if (rules.forbidden != 0 && contains(pos, rules.forbidden))
+				continue;
+			if (rules.needAffix == 0 || !contains(pos, rules.needAffix))
+				out.add(stem);
+			for (int i = pos + 1, end = pos + 1 + flags[pos]; i < end; i++) {
+				AffixRules.Affix[] affixes = rules.getAffixes(flags[i]);
+				for (int a = 0; a < affixes.length; a++) {
+					String form = affixes[a].apply(stem);
+					if (form == null)
+						continue;
+					addForm(form, out);
+					if (!affixes[a].prefix)
+						addSuffixed(pos, affixes[a], form, out);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the suffixed form with the suffixes continuing the one on it, and
+	 * with the prefixes of the entry at pos that combine with them.
+	 */
+	private void addSuffixed(int pos, AffixRules.Affix suffix, String form, Collection out) {
+		if (suffix.cross)
+			addPrefixed(pos, form, out);
+		for (int c = 0; c < suffix.continuation.length; c++) {
+			AffixRules.Affix[] outer = rules.getAffixes(suffix.continuation[c]);
+			for (int o = 0; o < outer.length; o++) {
+				String twice = outer[o].prefix ? null : outer[o].apply(form);
+				if (twice == null)
+					continue;
+				addForm(twice, out);
+				if (suffix.cross && outer[o].cross)
+					addPrefixed(pos, twice, out);
+			}
+		}
+	}
+
+	/** Adds the form with each prefix of the entry at pos that combines*/
+	private void addPrefixed(int pos, String form, Collection out) {
+		for (int i = pos + 1, end = pos + 1 + flags[pos]; i < end; i++) {
+			AffixRules.Affix[] affixes = rules.getAffixes(flags[i]);
+			for (int a = 0; a < affixes.length; a++) {
+				if (affixes[a].prefix && affixes[a].cross) {
+					String prefixed = affixes[a].apply(form);
+					if (prefixed != null)
+						addForm(prefixed, out);
+				}
+			}
+		}
+	}
+
+	/** Adds a form, unless it is a word flagged FORBIDDENWORD*/
+	private void addForm(String form, Collection out) {
+		int w = (rules.forbidden == 0) ? -1 : stems.indexOf(form);
+		if (w < 0 || !isForbidden(w))
+			out.add(form);
+	}
+
+	/**
+	 * Returns the forms of the stems of the code, followed by the added
+	 * words of the code. The forms have codes of their own.
+	 */
+	public LinkedList getWords(String code) {
+		LinkedList stemsOfCode = new LinkedList();
+		stems.addWords(code, stemsOfCode);
+		LinkedHashSet forms = new LinkedHashSet();
+		for (Iterator i = stemsOfCode.iterator(); i.hasNext();)
+			addForms(stems.indexOf((String) i.next()), forms);
+		forms.addAll(super.getWords(code));
+		return new LinkedList(forms);
+	}
+
+	/**
+	 * Returns the count best suggestions, those of SpellDictionary from the
+	 * forms of the stems with near miss codes, followed by the words
+	 * isCorrect accepts one swap, deletion, insertion or change away from
+	 * the misspelt word. The forms of a stem can have codes far from the
+	 * stem's, so those are not always among the near misses.
+	 */
+	public LinkedList getSuggestions(String word, int threshold, int count) {
+		LinkedList phonetic = super.getSuggestions(word, threshold, count);
+		DistanceScorer scorer = new DistanceScorer(getConfiguration());
+		TopSuggestions top = new TopSuggestions(count);
+		HashSet seen = new HashSet();
+		for (Iterator i = phonetic.iterator(); i.hasNext();) {
+			Word suggestion = (Word) i.next();
+			top.add(suggestion.getWord(), suggestion.getScore());
+			seen.add(suggestion.getWord());
+		}
+		char[] edit = new char[word.length() + 1];
+		for (int i = 0; i < word.length() - 1; i++) {
+			word.getChars(0, word.length(), edit, 0);
+			edit[i] = word.charAt(i + 1);
+			edit[i + 1] = word.charAt(i);
+			offer(word, new String(edit, 0, word.length()), scorer, top, threshold, seen);
+		}
+		for (int i = 0; i < word.length(); i++)
+			offer(word, word.substring(0, i) + word.substring(i + 1), scorer, top, threshold, seen);
+		for (int i = 0; i <= word.length(); i++) {
+			for (int a = 0; a < alphabet.length; a++) {
+				if (i < word.length() && alphabet[a] != word.charAt(i))
+					offer(word, word.substring(0, i) + alphabet[a] + word.substring(i + 1), scorer, top, threshold, seen);
+				offer(word, word.substring(0, i) + alphabet[a] + word.substring(i), scorer, top, threshold, seen);
+			}
+		}
+		return top.toList();
+	}
+
+	private void offer(String word, String edited, DistanceScorer scorer, TopSuggestions top, int threshold, HashSet seen) {
+		if (edited.length() == 0 || !seen.add(edited) || !isCorrect(edited))
+			return;
+		int limit = top.getLimit(threshold);
+		int distance = scorer.getDistance(word, edited, limit);
+		if (distance <= limit)
+			top.add(edited, distance);
+	}
+
+	/**
+	 * Adds the codes of the stems the word could come from to the near
+	 * misses of the word, so stems whose forms sound different are scored.
+	 * Their own near misses would cost more than the one edit checks of
+	 * getSuggestions.
+	 */
+	protected Set getNearMissCodes(String word) {
+		Set codes = super.getNearMissCodes(word);
+		AffixRules.Affix[] suffixes = rules.getSuffixes(word);
+		for (int i = 0; i < suffixes.length; i++) {
+			if (suffixes[i].isOn(word))
+				codes.add(getCode(suffixes[i].remove(word)));
+		}
+		AffixRules.Affix[] prefixes = rules.getPrefixes(word);
+		for (int i = 0; i < prefixes.length; i++) {
+			if (prefixes[i].isOn(word))
+				codes.add(getCode(prefixes[i].remove(word)));
+		}
+		return codes;
+	}
+
+	/**
+	 * Returns an iterator over the forms of every stem, then the added
+	 * words. The forms are worked out a stem at a time.
+	 */
+	public Iterator wordIterator() {
+		final Iterator added = super.wordIterator();
+		return new Iterator() {
+			private int next = 0;
+			private Iterator forms = Collections.EMPTY_LIST.iterator();
+
+			public boolean hasNext() {
+				while (!forms.hasNext() && next < stems.size()) {
+					LinkedHashSet stemForms = new LinkedHashSet();
+					addForms(next++, stemForms);
+					forms = stemForms.iterator();
+				}
+				return forms.hasNext() || added.hasNext();
+			}
+
+			public Object next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return forms.hasNext() ? forms.next() : added.next();
+			}
+		};
+	}
+
+	/**
+	 * Returns a rough estimate of the heap in bytes held by the stems, their
+	 * flags and the added words, without the affix rules.
+	 */
+	public long getEstimatedMemory() {
+		long bytes = super.getEstimatedMemory();
+		if (stems != null)
+			bytes += stems.getMemory() + 16 + 2L * flags.length + 16 + 4L * flagStart.length;
+		return bytes;
+	}
+
+	/** Releases the stems along with the rest of the dictionary*/
+	public void dispose() {
+		super.dispose();
+		rules = null;
+		stems = null;
+		flags = null;
+		flagStart = null;
+	}
+}
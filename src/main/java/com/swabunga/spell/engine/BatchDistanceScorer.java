@@ -0,0 +1,230 @@
+package com.swabunga.spell.engine;
+
+/**
+ * Computes the bounded edit distances of DistanceScorer between one word
+ * and many candidates together.
+ * <p>
+ * The candidates are scored LANES at a time. Their characters and dynamic
+ * programming cells are interleaved, one int per candidate, so each cell
+ * is computed for all of them in a tight loop without branches, which the
+ * JIT compiles to SIMD instructions where the CPU has them. Candidates
+ * shorter than the longest of a batch are padded; the padding only adds
+ * cells to the right of theirs, which their distance does not depend on.
+ * </p>
+ * <p>
+ * The distances are those of DistanceScorer.getDistance with the same
+ * limit. Only the cells near the diagonal are computed: a cell i rows and j
+ * columns in takes at least |i - j| deletions, so with a limit only a band
+ * of a few columns per row can be within it, and a distance that is within
+ * the limit only goes through cells that are. A batch stops early once
+ * every candidate is over the limit.
+ * </p>
+ * <p>A scorer is immutable and can be shared between threads.</p>
+ */
+public final class BatchDistanceScorer {
+
+	/** The number of candidates scored together*/
+	public static final int LANES = 16;
+
+	/** Below this many candidates DistanceScorer is quicker*/
+	private static final int MIN_BATCH = 4;
+
+	/** The padding and the column before the first one, equal to no char*/
+	private static final int NO_CHAR = 0x10001;
+	/** Before the first char of the word, equal to no char nor the padding*/
+	private static final int NO_WORD_CHAR = NO_CHAR + 1;
+	/** A cost no distance gets near, that can still be added to*/
+	private static final int FAR = Integer.MAX_VALUE / 4;
+
+	private final int del1;
+	private final int del2;
+	private final int swap;
+	private final int sub;
+	private final DistanceScorer scalar;
+
+	/** Per thread: the candidate chars and three rows, all interleaved, and the row minimums*/
+	private static final ThreadLocal buffers = new ThreadLocal() {
+		protected Object initialValue() {
+			return new Buffers(32);
+		}
+	};
+
+	private static final class Buffers {
+		final int[] chars;
+		final int[] back;
+		final int[] prev;
+		final int[] cur;
+		final int[] prevMin = new int[LANES];
+		final int[] curMin = new int[LANES];
+		final int[] length = new int[LANES];
+
+		Buffers(int columns) {
+			int size = (columns + 2) * LANES;
+			chars = new int[size];
+			back = new int[size];
+			prev = new int[size];
+			cur = new int[size];
+		}
+
+		int columns() {
+			return chars.length / LANES - 2;
+		}
+	}
+
+	/**
+	 * Creates a scorer with the EDIT_DEL1, EDIT_DEL2, EDIT_SWAP and EDIT_SUB
+	 * costs of the configuration.
+	 */
+	public BatchDistanceScorer(Configuration config) {
+		this(config.getInteger(Configuration.EDIT_DEL1), config.getInteger(Configuration.EDIT_DEL2),
+			config.getInteger(Configuration.EDIT_SWAP), config.getInteger(Configuration.EDIT_SUB));
+	}
+
+	/**
+	 * Creates a scorer with explicit costs.
+	 */
+	public BatchDistanceScorer(int del1, int del2, int swap, int sub) {
+		this.del1 = del1;
+		this.del2 = del2;
+		this.swap = swap;
+		this.sub = sub;
+		scalar = new DistanceScorer(del1, del2, swap, sub);
+	}
+
+	/**
+	 * Puts the edit distance between the word and each of the first count
+	 * candidates into distances, or limit + 1 where it is more than limit.
+	 */
+	public void getDistances(CharSequence word, CharSequence[] candidates, int count, int limit, int[] distances) {
+		for (int from = 0; from < count; from += LANES) {
+			int n = Math.min(LANES, count - from);
+			if (n < MIN_BATCH) {
+				for (int k = from; k < from + n; k++)
+					distances[k] = scalar.getDistance(word, candidates[k], limit);
+			} else {
+				batch(word, candidates, from, n, limit, distances);
+			}
+		}
+	}
+
+	/**
+	 * Scores candidates[from, from + n). Column j of lane l is at
+	 * (j + 1) * LANES + l, the column before the first one is there so the
+	 * transposition reaches back without a test.
+	 */
+	private void batch(CharSequence word, CharSequence[] candidates, int from, int n, int limit, int[] distances) {
+		int columns = 0;
+		for (int l = 0; l < n; l++)
+			columns = Math.max(columns, candidates[from + l].length());
+		Buffers b = (Buffers) buffers.get();
+		if (b.columns() < columns) {
+			b = new Buffers(Math.max(columns, b.columns() * 2));
+			buffers.set(b);
+		}
+		int[] chars = b.chars;
+		int[] back = b.back;
+		int[] prev = b.prev;
+		int[] cur = b.cur;
+		int[] prevMin = b.prevMin;
+		int[] curMin = b.curMin;
+
+		for (int l = 0; l < LANES; l++) {
+			CharSequence similar = (l < n) ? candidates[from + l] : "";
+			int length = similar.length();
+			b.length[l] = length;
+			chars[l] = NO_CHAR;
+			chars[LANES + l] = NO_CHAR;
+			for (int j = 0; j < length; j++)
+				chars[(j + 2) * LANES + l] = similar.charAt(j);
+			for (int j = length + 1; j <= columns; j++)
+				chars[(j + 1) * LANES + l] = NO_CHAR;
+			back[l] = FAR;
+			prev[l] = FAR;
+			cur[l] = FAR;
+			prevMin[l] = 0;
+		}
+		for (int j = 0; j <= columns; j++) {
+			int cost = j * del1;
+			for (int l = 0, at = (j + 1) * LANES; l < LANES; l++)
+				prev[at + l] = cost;
+		}
+
+		int a_size = word.length() + 1;
+		// Cells further than band columns off the diagonal are over the limit
+		int band = a_size + columns;
+		int minDel = Math.min(del1, del2);
+		if (limit != Integer.MAX_VALUE && minDel > 0)
+			band = Math.min(band, limit / minDel);
+		int before = NO_WORD_CHAR;
+		boolean over = false;
+		for (int i = 1; i != a_size && !over; ++i) {
+			int wc = word.charAt(i - 1);
+			int first = prev[LANES] + del2;
+			for (int l = 0; l < LANES; l++) {
+				cur[LANES + l] = first;
+				curMin[l] = first;
+			}
+			int lo = Math.max(1, i - band);
+			int hi = Math.min(columns, i + band);
+			if (lo > hi) {
+				// Every candidate is too short to get within the limit
+				over = true;
+				break;
+			}
+			// The cells just outside the band are read by this row and the next two
+			fill(cur, lo - 1, FAR);
+			fill(cur, hi + 1, FAR);
+			// One loop over the band, cell k is built from cells k - LANES and k - 2 * LANES
+			for (int k = (lo + 1) * LANES, bandEnd = (hi + 2) * LANES; k < bandEnd; k++) {
+				int sc = chars[k];
+				int diagonal = prev[k - LANES];
+				int cell = min(sub + diagonal, min(del1 + prev[k], del2 + cur[k - LANES]));
+				// The transposition, if wc is the char before and the one before wc is sc
+				int swapped = equal(wc, chars[k - LANES]) & equal(before, sc);
+				cell = min(cell, (swapped & (swap + back[k - 2 * LANES])) | (~swapped & FAR));
+				int same = equal(wc, sc);
+				cur[k] = (same & diagonal) | (~same & cell);
+			}
+			for (int at = (lo + 1) * LANES; at <= (hi + 1) * LANES; at += LANES) {
+				for (int l = 0; l < LANES; l++)
+					curMin[l] = min(curMin[l], cur[at + l]);
+			}
+			// As in DistanceScorer, though over every column of the batch,
+			// which can only be lower than over the candidate's own
+			over = true;
+			for (int l = 0; l < n; l++)
+				over &= (curMin[l] > limit && prevMin[l] > limit);
+			System.arraycopy(curMin, 0, prevMin, 0, LANES);
+			int[] t = back;
+			back = prev;
+			prev = cur;
+			cur = t;
+			before = wc;
+		}
+		int last = a_size - 1;
+		for (int l = 0; l < n; l++) {
+			boolean outside = Math.abs(last - b.length[l]) > band;
+			int distance = (over || outside) ? limit + 1 : prev[(b.length[l] + 1) * LANES + l];
+			distances[from + l] = (distance > limit && limit != Integer.MAX_VALUE) ? limit + 1 : distance;
+		}
+	}
+
+	/** Sets the cells of column j, if it is one of the candidates' columns*/
+	private static void fill(int[] row, int j, int value) {
+		if (j < 1 || (j + 2) * LANES > row.length)
+			return;
+		for (int l = 0, at = (j + 1) * LANES; l < LANES; l++)
+			row[at + l] = value;
+	}
+
+	/** Math.min without a branch, which the JIT vectorizes where it does not Math.min. The difference must not overflow*/
+	private static int min(int a, int b) {
+		int d = a - b;
+		return b + (d & (d >> 31));
+	}
+
+	/** -1 if the chars are equal, 0 if not. Neither is negative*/
+	private static int equal(int a, int b) {
+		return ((a ^ b) - 1) >> 31;
+	}
+}
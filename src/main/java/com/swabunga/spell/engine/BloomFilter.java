@@ -0,0 +1,169 @@
+package com.swabunga.spell.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over words, ignoring the case of ASCII letters.
+ * <p>
+ * A word is keyed by its characters with A to Z lowered, so one entry
+ * answers for a word and for its lower case: if "Paris" or "paris" was
+ * added, mightContain("PARIS") is true. Words with other characters are
+ * always let through, their lower case is String.toLowerCase's business.
+ * </p>
+ * <p>
+ * The filter is blocked down to a single long: one hash of the key picks
+ * the long, a second one the bits set in it. That takes more bits than a
+ * plain Bloom filter for the same false positive rate, but a lookup is one
+ * load and one compare, which is what it has to beat: the word tables of
+ * SpellDictionary answer in a probe or two. The bits are an
+ * AtomicLongArray, so words can be added while other threads ask. Adds
+ * must be serialised by the caller.
+ * </p>
+ */
+final class BloomFilter {
+
+	/** The most bits set per word, 6 bits of hash each*/
+	private static final int MAX_HASHES = 10;
+
+	private final AtomicLongArray bits;
+	private final int hashCount;
+	private final double falsePositiveRate;
+	private volatile int size = 0;
+
+	/**
+	 * @param expectedWords The number of words the filter is sized for
+	 * @param falsePositiveRate The rate of words not added that mightContain
+	 * says yes to, once expectedWords are in, between 0 and 1 exclusive
+	 */
+	BloomFilter(int expectedWords, double falsePositiveRate) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+			throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+		int n = Math.max(expectedWords, 1);
+		double ln2 = Math.log(2);
+		// Start from the size of a plain Bloom filter and grow it until the
+		// uneven load of the longs is made up for, with the best number of
+		// bits per word for each size
+		double m = -n * Math.log(falsePositiveRate) / (ln2 * ln2);
+		int longs = (int) Math.max(1, Math.min(Math.ceil(m / 64), Integer.MAX_VALUE / 2));
+		int k = bestHashCount(n, longs);
+		while (expectedRate(n, longs, k) > falsePositiveRate && longs < Integer.MAX_VALUE / 2) {
+			longs += Math.max(1, longs / 32);
+			k = bestHashCount(n, longs);
+		}
+		bits = new AtomicLongArray(longs);
+		hashCount = k;
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	private static int bestHashCount(int n, int longs) {
+		int best = 1;
+		for (int k = 2; k <= MAX_HASHES; k++) {
+			if (expectedRate(n, longs, k) < expectedRate(n, longs, best))
+				best = k;
+		}
+		return best;
+	}
+
+	/** Adds the word. Words with other than ASCII characters are left out*/
+	void add(CharSequence word) {
+		long h = hash(word, false);
+		if (h == 0)
+			return;
+		int slot = slot(h);
+		long mask = mask(h);
+		long old = bits.get(slot);
+		while ((old & mask) != mask && !bits.compareAndSet(slot, old, old | mask))
+			old = bits.get(slot);
+		size++;
+	}
+
+	/**
+	 * Returns false if neither the word nor any spelling of it that only
+	 * differs in the case of ASCII letters was added.
+	 */
+	boolean mightContain(CharSequence word) {
+		long h = hash(word, true);
+		if (h == 0)
+			return true;
+		long mask = mask(h);
+		return (bits.get(slot(h)) & mask) == mask;
+	}
+
+	/** The long of the hash, from its high half*/
+	private int slot(long h) {
+		return (int) (((h >>> 32) * bits.length()) >>> 32);
+	}
+
+	/** The bits of the hash, from its low half mixed again*/
+	private long mask(long h) {
+		long g = (h & 0xFFFFFFFFL) * 0xC2B2AE3D27D4EB4FL;
+		g ^= g >>> 31;
+		long mask = 0;
+		for (int i = 0; i < hashCount; i++)
+			mask |= 1L << (g >>> (6 * i));
+		return mask;
+	}
+
+	/**
+	 * The String.hashCode of the key, spread over a long. 0 if the word has
+	 * other than ASCII characters or, when it is asked about, characters
+	 * that String.toLowerCase lowers differently in the default locale.
+	 */
+	private static long hash(CharSequence word, boolean query) {
+		int h1 = 0;
+		boolean capitalI = false;
+		for (int i = 0, length = word.length(); i < length; i++) {
+			char ch = word.charAt(i);
+			if (ch >= 0x80)
+				return 0;
+			if (ch >= 'A' && ch <= 'Z') {
+				capitalI |= (ch == 'I');
+				ch += 'a' - 'A';
+			}
+			h1 = 31 * h1 + ch;
+		}
+		if (query && capitalI && !WordSet.isAsciiLowerCaseLocale())
+			return 0;
+		long h = (h1 ^ ((long) h1 << 32)) * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 29;
+		return (h == 0) ? 1 : h;
+	}
+
+	/** Returns the false positive rate the filter was sized for*/
+	double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	/** Returns the false positive rate expected with the words added so far*/
+	double getExpectedFalsePositiveRate() {
+		return expectedRate(size, bits.length(), hashCount);
+	}
+
+	/**
+	 * The rate of a long holding j words, weighted by the Poisson chance of
+	 * a long holding j words.
+	 */
+	private static double expectedRate(int size, int longs, int hashCount) {
+		double load = (double) size / longs;
+		double rate = 0;
+		double p = Math.exp(-load);
+		int last = (int) (load + 10 * Math.sqrt(load) + 10);
+		for (int j = 0; j <= last; j++) {
+			if (j > 0)
+				p *= load / j;
+			double unset = Math.pow(1 - 1.0 / 64, (double) hashCount * j);
+			rate += p * Math.pow(1 - unset, hashCount);
+		}
+		return rate;
+	}
+
+	/** Returns the number of words added*/
+	int size() {
+		return size;
+	}
+
+	/** Returns the heap in bytes held by the bits*/
+	long getMemory() {
+		return 16 + 8L * bits.length();
+	}
+}
@@ -0,0 +1,141 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A Transformator that remembers the codes of recently transformed words.
+ *  <p>
+ *  A single suggestion request transforms dozens to hundreds of near miss
+ *  variants of a word, and the same words and variants come up again and
+ *  again in a document. This cache sits in front of any Transformator.
+ *  </p>
+ *  <p>
+ *  The cache is split into segments, each a small LRU map with its own lock,
+ *  so threads rarely wait on each other. When a segment is full its least
+ *  recently used word is evicted. The wrapped Transformator is called
+ *  outside the locks, so it must be thread safe itself.
+ *  </p>
+ */
+public class CachingTransformator implements Transformator {
+
+	/** The number of codes kept when no capacity is given*/
+	public static final int DEFAULT_CAPACITY = 16 * 1024;
+
+	private static final int SEGMENTS = 16;
+
+	private final Transformator transformator;
+	private final int capacity;
+	private final LinkedHashMap[] segments;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public CachingTransformator(Transformator transformator) {
+		this(transformator, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param transformator The transformator computing the codes
+	 * @param capacity The maximum number of codes kept
+	 */
+	public CachingTransformator(Transformator transformator, int capacity) {
+		if (transformator == null)
+			throw new IllegalArgumentException("transformator must be non-null");
+		this.transformator = transformator;
+		this.capacity = capacity;
+		final int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+		segments = new LinkedHashMap[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new LinkedHashMap(16, 0.75f, true) {
+				protected boolean removeEldestEntry(Map.Entry eldest) {
+					if (size() <= segmentCapacity)
+						return false;
+					evictions.increment();
+					return true;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Returns the phonetic code of the word, from the cache if possible.
+	 */
+	public String transform(String word) {
+		LinkedHashMap segment = segmentFor(word);
+		String code;
+		synchronized (segment) {
+			code = (String) segment.get(word);
+		}
+		if (code != null) {
+			hits.increment();
+			return code;
+		}
+		misses.increment();
+		code = transformator.transform(word);
+		if (code != null) {
+			synchronized (segment) {
+				segment.put(word, code);
+			}
+		}
+		return code;
+	}
+
+	private LinkedHashMap segmentFor(String word) {
+		int h = word.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENTS - 1)];
+	}
+
+	/** Returns the Transformator whose codes are cached*/
+	public Transformator getTransformator() {
+		return transformator;
+	}
+
+	/** Returns the maximum number of codes kept*/
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/** Returns the number of codes currently kept*/
+	public int getSize() {
+		int size = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			synchronized (segments[i]) {
+				size += segments[i].size();
+			}
+		}
+		return size;
+	}
+
+	/** Returns the number of words found in the cache*/
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/** Returns the number of words that had to be transformed*/
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/** Returns the number of codes dropped to make room for others*/
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/** Returns the share of lookups answered from the cache, 0 if there were none*/
+	public double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return (total == 0) ? 0 : (double) h / total;
+	}
+
+	/** Forgets all cached codes. The counters are kept.*/
+	public void clear() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			synchronized (segments[i]) {
+				segments[i].clear();
+			}
+		}
+	}
+}
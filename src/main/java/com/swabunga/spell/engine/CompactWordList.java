@@ -0,0 +1,363 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+
+/**
+ * The words of a loaded word list, bucketed by phonetic code, in a handful
+ * of primitive arrays instead of a String and a list node per word.
+ * <p>
+ * The characters of all words sit in one pool, a word being the range
+ * between its start offset and the next one. The words of a code are a
+ * contiguous range of word numbers, in the order of the word list. Codes
+ * and words are found through open addressing tables of their numbers, hashed with the String.hashCode
+ * formula and compared char by char against the pools. A slot of the word
+ * table also keeps 8 bits of the hash, so most probes of a miss never
+ * touch the pool.
+ * </p>
+ * <p>
+ * A CompactWordList never changes once built, so it is read without locks.
+ * Words added later are kept by the SpellDictionary itself.
+ * </p>
+ */
+final class CompactWordList {
+
+	/** Bits of a word table slot that hold the word number plus one*/
+	private static final int WORD_MASK = (1 << 24) - 1;
+
+	/** A word list without words*/
+	static final CompactWordList EMPTY = new Builder().build();
+
+	/** Code c is codeChars[codeStart[c]] to codeChars[codeStart[c + 1] - 1]*/
+	private final char[] codeChars;
+	private final int[] codeStart;
+	/** The words of code c are firstWord[c] to firstWord[c + 1] - 1*/
+	private final int[] firstWord;
+	/** Word w is chars[wordStart[w]] to chars[wordStart[w + 1] - 1]*/
+	private final char[] chars;
+	private final int[] wordStart;
+	/** Code numbers plus one, 0 is a free slot*/
+	private final int[] codeTable;
+	/**
+	 * Word numbers plus one under the top 8 bits of their hash, 0 is a free
+	 * slot. Repeated words are in once.
+	 */
+	private final int[] wordTable;
+
+	private CompactWordList(char[] codeChars, int[] codeStart, int[] firstWord, char[] chars, int[] wordStart) {
+		this.codeChars = codeChars;
+		this.codeStart = codeStart;
+		this.firstWord = firstWord;
+		this.chars = chars;
+		this.wordStart = wordStart;
+		codeTable = new int[capacity(getCodeCount())];
+		for (int c = 0; c < getCodeCount(); c++)
+			codeTable[~findCode(codeChars, codeStart[c], codeStart[c + 1] - codeStart[c])] = c + 1;
+		wordTable = new int[capacity(size())];
+		for (int w = 0; w < size(); w++) {
+			int hash = WordSet.mix(hash(chars, wordStart[w], wordStart[w + 1] - wordStart[w]));
+			int slot = findWord(hash, chars, wordStart[w], wordStart[w + 1] - wordStart[w]);
+			if (slot < 0)
+				wordTable[~slot] = (hash & ~WORD_MASK) | (w + 1);
+		}
+	}
+
+	/** A power of two at least twice the number of entries*/
+	private static int capacity(int entries) {
+		int capacity = 16;
+		while (capacity < entries * 2)
+			capacity <<= 1;
+		return capacity;
+	}
+
+	/** Returns the number of words, repeated words included*/
+	int size() {
+		return wordStart.length - 1;
+	}
+
+	/** Returns the number of codes*/
+	int getCodeCount() {
+		return codeStart.length - 1;
+	}
+
+	/** Returns word w*/
+	String getWord(int w) {
+		return new String(chars, wordStart[w], wordStart[w + 1] - wordStart[w]);
+	}
+
+	/** Appends the words of the code, in bucket order, to the list*/
+	void addWords(String code, List list) {
+		int c = getCode(code);
+		if (c < 0)
+			return;
+		for (int w = firstWord[c]; w < firstWord[c + 1]; w++)
+			list.add(getWord(w));
+	}
+
+	/**
+	 * Returns the list without repeated words and without the words the
+	 * dictionary has already, or this list if there are none of either.
+	 */
+	CompactWordList without(SpellDictionary known) {
+		Builder builder = null;
+		for (int c = 0; c < getCodeCount(); c++) {
+			for (int w = firstWord[c]; w < firstWord[c + 1]; w++) {
+				String word = getWord(w);
+				boolean drop = indexOf(word) != w || known.isListed(word) || known.isAdded(word);
+				if (drop && builder == null) {
+					// Copy the words kept so far, then go on without this one
+					builder = new Builder();
+					for (int d = 0; d <= c; d++) {
+						String code = new String(codeChars, codeStart[d], codeStart[d + 1] - codeStart[d]);
+						for (int v = firstWord[d]; v < firstWord[d + 1] && v < w; v++)
+							builder.add(getWord(v), code);
+					}
+				} else if (!drop && builder != null)
+					builder.add(word, new String(codeChars, codeStart[c], codeStart[c + 1] - codeStart[c]));
+			}
+		}
+		return (builder == null) ? this : builder.build();
+	}
+
+	/** Returns true if the list holds exactly these characters*/
+	boolean contains(CharSequence word) {
+		return indexOf(word) >= 0;
+	}
+
+	/**
+	 * Returns the number of the word, the first one if it is repeated, or
+	 * -1 if the list does not hold it.
+	 */
+	int indexOf(CharSequence word) {
+		int mask = wordTable.length - 1;
+		int length = word.length();
+		int hash = WordSet.mix(WordSet.hash(word));
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int entry = wordTable[slot];
+			if (entry == 0)
+				return -1;
+			int w = (entry & WORD_MASK) - 1;
+			if (((entry ^ hash) & ~WORD_MASK) == 0
+				&& wordStart[w + 1] - wordStart[w] == length && compare(w, word) == 0)
+				return w;
+		}
+	}
+
+	/**
+	 * Returns true if the list holds the word in lower case, see
+	 * WordSet.containsLowerCase. Only asked about words that contains has
+	 * not found, so a word without upper case is not looked up again.
+	 */
+	boolean containsLowerCase(CharSequence word) {
+		if (!WordSet.isAsciiLowerCaseSafe(word))
+			return contains(word.toString().toLowerCase());
+		int length = word.length();
+		int h = 0;
+		boolean changed = false;
+		for (int i = 0; i < length; i++) {
+			char ch = word.charAt(i);
+			if (ch >= 'A' && ch <= 'Z') {
+				ch += 'a' - 'A';
+				changed = true;
+			}
+			h = 31 * h + ch;
+		}
+		if (!changed)
+			return false;
+		int mask = wordTable.length - 1;
+		int hash = WordSet.mix(h);
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int entry = wordTable[slot];
+			if (entry == 0)
+				return false;
+			int w = (entry & WORD_MASK) - 1;
+			if (((entry ^ hash) & ~WORD_MASK) == 0
+				&& wordStart[w + 1] - wordStart[w] == length && equalsLowerCase(w, word))
+				return true;
+		}
+	}
+
+	private boolean equalsLowerCase(int w, CharSequence word) {
+		int start = wordStart[w];
+		for (int i = 0, length = word.length(); i < length; i++) {
+			char ch = word.charAt(i);
+			if (ch >= 'A' && ch <= 'Z')
+				ch += 'a' - 'A';
+			if (chars[start + i] != ch)
+				return false;
+		}
+		return true;
+	}
+
+	/** Compares word w with the characters, like String.compareTo*/
+	private int compare(int w, CharSequence word) {
+		int start = wordStart[w];
+		int length = wordStart[w + 1] - start;
+		int n = Math.min(length, word.length());
+		for (int i = 0; i < n; i++) {
+			char c1 = chars[start + i];
+			char c2 = word.charAt(i);
+			if (c1 != c2)
+				return c1 - c2;
+		}
+		return length - word.length();
+	}
+
+	/** Returns the number of the code or -1*/
+	private int getCode(String code) {
+		int mask = codeTable.length - 1;
+		int length = code.length();
+		for (int slot = WordSet.mix(code.hashCode()) & mask;; slot = (slot + 1) & mask) {
+			int c = codeTable[slot] - 1;
+			if (c < 0)
+				return -1;
+			if (codeStart[c + 1] - codeStart[c] == length && equals(codeChars, codeStart[c], code))
+				return c;
+		}
+	}
+
+	/** Returns the slot of the code, or the complement of the free slot for it*/
+	private int findCode(char[] pool, int start, int length) {
+		int mask = codeTable.length - 1;
+		for (int slot = WordSet.mix(hash(pool, start, length)) & mask;; slot = (slot + 1) & mask) {
+			int c = codeTable[slot] - 1;
+			if (c < 0)
+				return ~slot;
+			if (codeStart[c + 1] - codeStart[c] == length && equals(codeChars, codeStart[c], pool, start, length))
+				return c;
+		}
+	}
+
+	/** Returns the slot of the word, or the complement of the free slot for it*/
+	private int findWord(int hash, char[] pool, int start, int length) {
+		int mask = wordTable.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int entry = wordTable[slot];
+			if (entry == 0)
+				return ~slot;
+			int w = (entry & WORD_MASK) - 1;
+			if (((entry ^ hash) & ~WORD_MASK) == 0
+				&& wordStart[w + 1] - wordStart[w] == length && equals(chars, wordStart[w], pool, start, length))
+				return slot;
+		}
+	}
+
+	private static int hash(char[] pool, int start, int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++)
+			h = 31 * h + pool[start + i];
+		return h;
+	}
+
+	private static boolean equals(char[] pool, int start, String s) {
+		for (int i = 0, length = s.length(); i < length; i++) {
+			if (pool[start + i] != s.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean equals(char[] a, int aStart, char[] b, int bStart, int length) {
+		for (int i = 0; i < length; i++) {
+			if (a[aStart + i] != b[bStart + i])
+				return false;
+		}
+		return true;
+	}
+
+	/** Returns the heap in bytes held by the arrays*/
+	long getMemory() {
+		return chars(codeChars.length) + chars(chars.length)
+			+ ints(codeStart.length) + ints(firstWord.length) + ints(wordStart.length)
+			+ ints(codeTable.length) + ints(wordTable.length);
+	}
+
+	private static long chars(int length) {
+		return (16 + 2L * length + 7) & ~7;
+	}
+
+	private static long ints(int length) {
+		return (16 + 4L * length + 7) & ~7;
+	}
+
+	/**
+	 * Collects the words of a word list, with their codes, and packs them
+	 * into a CompactWordList. The words are kept in growing arrays while
+	 * they come in, only the distinct codes are Strings.
+	 */
+	static final class Builder {
+		/** Code to Integer code number*/
+		private final HashMap codes = new HashMap();
+		private final ArrayList codeList = new ArrayList();
+		private char[] chars = new char[64 * 1024];
+		private int charCount = 0;
+		private int[] wordStart = new int[8 * 1024 + 1];
+		private int[] wordCode = new int[8 * 1024];
+		private int wordCount = 0;
+
+		/** Adds a word of the code*/
+		void add(String word, String code) {
+			Integer number = (Integer) codes.get(code);
+			if (number == null) {
+				number = Integer.valueOf(codeList.size());
+				codes.put(code, number);
+				codeList.add(code);
+			}
+			if (charCount + word.length() > chars.length)
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + word.length()));
+			if (wordCount == wordCode.length) {
+				wordCode = Arrays.copyOf(wordCode, wordCount * 2);
+				wordStart = Arrays.copyOf(wordStart, wordCount * 2 + 1);
+			}
+			word.getChars(0, word.length(), chars, charCount);
+			wordStart[wordCount] = charCount;
+			wordCode[wordCount++] = number.intValue();
+			charCount += word.length();
+			wordStart[wordCount] = charCount;
+		}
+
+		/** Returns the words added so far as a CompactWordList*/
+		CompactWordList build() {
+			if (wordCount >= WORD_MASK)
+				throw new IllegalStateException("A word list can not hold more than " + (WORD_MASK - 1) + " words");
+			int codeCount = codeList.size();
+			// Lay the buckets out one after the other, keeping the order of
+			// the word list within a bucket
+			int[] firstWord = new int[codeCount + 1];
+			for (int w = 0; w < wordCount; w++)
+				firstWord[wordCode[w] + 1]++;
+			for (int c = 0; c < codeCount; c++)
+				firstWord[c + 1] += firstWord[c];
+			int[] next = Arrays.copyOf(firstWord, codeCount);
+			int[] order = new int[wordCount];
+			for (int w = 0; w < wordCount; w++)
+				order[next[wordCode[w]]++] = w;
+
+			char[] packed = new char[charCount];
+			int[] packedStart = new int[wordCount + 1];
+			int pos = 0;
+			for (int i = 0; i < wordCount; i++) {
+				int w = order[i];
+				int length = wordStart[w + 1] - wordStart[w];
+				System.arraycopy(chars, wordStart[w], packed, pos, length);
+				packedStart[i] = pos;
+				pos += length;
+			}
+			packedStart[wordCount] = pos;
+
+			int codeLength = 0;
+			for (int c = 0; c < codeCount; c++)
+				codeLength += ((String) codeList.get(c)).length();
+			char[] codeChars = new char[codeLength];
+			int[] codeStart = new int[codeCount + 1];
+			pos = 0;
+			for (int c = 0; c < codeCount; c++) {
+				String code = (String) codeList.get(c);
+				code.getChars(0, code.length(), codeChars, pos);
+				codeStart[c] = pos;
+				pos += code.length();
+			}
+			codeStart[codeCount] = pos;
+			return new CompactWordList(codeChars, codeStart, firstWord, packed, packedStart);
+		}
+	}
+}
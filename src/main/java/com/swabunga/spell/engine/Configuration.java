@@ -29,6 +29,25 @@ public abstract class Configuration {
 	public abstract void setInteger(String key, int value);
 	public abstract void setBoolean(String key, boolean value);
 	
+	/**
+	 * Returns a snapshot of the configuration getConfiguration returns,
+	 * made on the first call and shared from then on.
+	 */
+	public static final ConfigurationSnapshot getSnapshot() {
+		return Default.SNAPSHOT;
+	}
+
+	/** Reads the configuration when getSnapshot is first called*/
+	private static final class Default {
+		static final ConfigurationSnapshot SNAPSHOT = ConfigurationSnapshot.of(getConfiguration());
+	}
+
+	/**
+	 * Returns a new instance of the configuration class named by the
+	 * jazzy.config system property, or a PropertyConfiguration. Code that
+	 * only reads the values should use getSnapshot, which does not read
+	 * them again each time.
+	 */
 	public static final Configuration getConfiguration() {
 		Configuration result;
 		// changed, breaks applet security otherwise (Howard Kistler)
@@ -0,0 +1,199 @@
+package com.swabunga.spell.engine;
+
+/**
+ * An immutable copy of the values of a Configuration, read once.
+ * <p>
+ * The values sit in arrays, so the typed getters cost an array read and a
+ * snapshot can be shared by any number of threads. Changing a value makes
+ * a new snapshot, see withThreshold, so checkers can use different
+ * thresholds side by side without touching each other or the disk. To
+ * keep a value, set it on a PropertyConfiguration and save that.
+ * </p>
+ * <p>
+ * A value the configuration does not have, for instance because
+ * configuration.properties is not on the class path, is taken from the
+ * defaults that file ships with.
+ * </p>
+ */
+public final class ConfigurationSnapshot extends Configuration {
+
+	private static final String[] INTEGER_KEYS = { EDIT_DEL1, EDIT_DEL2, EDIT_SWAP, EDIT_SUB, EDIT_SIMILAR,
+		EDIT_MIN, EDIT_MAX, SPELL_THRESHOLD };
+	private static final String[] BOOLEAN_KEYS = { SPELL_IGNOREUPPERCASE, SPELL_IGNOREMIXEDCASE,
+		SPELL_IGNOREINTERNETADDRESSES, SPELL_IGNOREDIGITWORDS, SPELL_IGNOREMULTIPLEWORDS,
+		SPELL_IGNORESENTANCECAPITALIZATION };
+	/** The values of configuration.properties, in the order of the keys*/
+	private static final int[] DEFAULT_INTEGERS = { 95, 95, 90, 100, 10, 90, 100, 140 };
+	private static final boolean[] DEFAULT_BOOLEANS = { false, false, false, true, false, false };
+
+	// Indexes into integers, in the order of INTEGER_KEYS
+	private static final int DEL1 = 0;
+	private static final int DEL2 = 1;
+	private static final int SWAP = 2;
+	private static final int SUB = 3;
+	private static final int THRESHOLD = 7;
+	// Indexes into booleans, in the order of BOOLEAN_KEYS
+	private static final int IGNORE_UPPERCASE = 0;
+	private static final int IGNORE_MIXEDCASE = 1;
+	private static final int IGNORE_INTERNETADDRESSES = 2;
+	private static final int IGNORE_DIGITWORDS = 3;
+	private static final int IGNORE_SENTANCECAPITALIZATION = 5;
+
+	private final int[] integers;
+	private final boolean[] booleans;
+
+	private ConfigurationSnapshot(int[] integers, boolean[] booleans) {
+		this.integers = integers;
+		this.booleans = booleans;
+	}
+
+	/**
+	 * Returns a snapshot of the current values of the configuration, or the
+	 * configuration itself if it is a snapshot.
+	 */
+	public static ConfigurationSnapshot of(Configuration config) {
+		if (config instanceof ConfigurationSnapshot)
+			return (ConfigurationSnapshot) config;
+		int[] integers = (int[]) DEFAULT_INTEGERS.clone();
+		for (int i = 0; i < integers.length; i++) {
+			try {
+				integers[i] = config.getInteger(INTEGER_KEYS[i]);
+			} catch (RuntimeException e) {
+				// Missing or not a number, keep the default
+			}
+		}
+		boolean[] booleans = (boolean[]) DEFAULT_BOOLEANS.clone();
+		for (int i = 0; i < booleans.length; i++) {
+			try {
+				booleans[i] = config.getBoolean(BOOLEAN_KEYS[i]);
+			} catch (RuntimeException e) {
+				// Missing, keep the default
+			}
+		}
+		return new ConfigurationSnapshot(integers, booleans);
+	}
+
+	/**
+	 * Returns a snapshot with the SPELL_THRESHOLD given and the other values
+	 * of this one.
+	 */
+	public ConfigurationSnapshot withThreshold(int threshold) {
+		return withInteger(SPELL_THRESHOLD, threshold);
+	}
+
+	/**
+	 * Returns a snapshot with the integer value given and the other values
+	 * of this one.
+	 *
+	 * @throws IllegalArgumentException if the key is not an integer key of
+	 * Configuration
+	 */
+	public ConfigurationSnapshot withInteger(String key, int value) {
+		int[] changed = (int[]) integers.clone();
+		changed[index(INTEGER_KEYS, key)] = value;
+		return new ConfigurationSnapshot(changed, booleans);
+	}
+
+	/**
+	 * Returns a snapshot with the boolean value given and the other values
+	 * of this one.
+	 *
+	 * @throws IllegalArgumentException if the key is not a boolean key of
+	 * Configuration
+	 */
+	public ConfigurationSnapshot withBoolean(String key, boolean value) {
+		boolean[] changed = (boolean[]) booleans.clone();
+		changed[index(BOOLEAN_KEYS, key)] = value;
+		return new ConfigurationSnapshot(integers, changed);
+	}
+
+	private static int index(String[] keys, String key) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i].equals(key))
+				return i;
+		}
+		throw new IllegalArgumentException("Unknown configuration key " + key);
+	}
+
+	/** Returns EDIT_DEL1*/
+	public int getEditDel1() {
+		return integers[DEL1];
+	}
+
+	/** Returns EDIT_DEL2*/
+	public int getEditDel2() {
+		return integers[DEL2];
+	}
+
+	/** Returns EDIT_SWAP*/
+	public int getEditSwap() {
+		return integers[SWAP];
+	}
+
+	/** Returns EDIT_SUB*/
+	public int getEditSub() {
+		return integers[SUB];
+	}
+
+	/** Returns SPELL_THRESHOLD, suggestions must score below it*/
+	public int getThreshold() {
+		return integers[THRESHOLD];
+	}
+
+	/** Returns SPELL_IGNOREUPPERCASE*/
+	public boolean isIgnoreUpperCase() {
+		return booleans[IGNORE_UPPERCASE];
+	}
+
+	/** Returns SPELL_IGNOREMIXEDCASE*/
+	public boolean isIgnoreMixedCase() {
+		return booleans[IGNORE_MIXEDCASE];
+	}
+
+	/** Returns SPELL_IGNOREINTERNETADDRESSES*/
+	public boolean isIgnoreInternetAddresses() {
+		return booleans[IGNORE_INTERNETADDRESSES];
+	}
+
+	/** Returns SPELL_IGNOREDIGITWORDS*/
+	public boolean isIgnoreDigitWords() {
+		return booleans[IGNORE_DIGITWORDS];
+	}
+
+	/** Returns SPELL_IGNORESENTANCECAPITALIZATION*/
+	public boolean isIgnoreSentanceCapitalization() {
+		return booleans[IGNORE_SENTANCECAPITALIZATION];
+	}
+
+	/**
+	 * @see Configuration#getInteger(String)
+	 */
+	public int getInteger(String key) {
+		return integers[index(INTEGER_KEYS, key)];
+	}
+
+	/**
+	 * @see Configuration#getBoolean(String)
+	 */
+	public boolean getBoolean(String key) {
+		return booleans[index(BOOLEAN_KEYS, key)];
+	}
+
+	/**
+	 * A snapshot does not change, use withInteger.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	public void setInteger(String key, int value) {
+		throw new UnsupportedOperationException("A configuration snapshot can not be changed, use withInteger");
+	}
+
+	/**
+	 * A snapshot does not change, use withBoolean.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	public void setBoolean(String key, boolean value) {
+		throw new UnsupportedOperationException("A configuration snapshot can not be changed, use withBoolean");
+	}
+}
@@ -0,0 +1,157 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Compiles a plain word list (one word per line) into the binary dictionary
+ * format read by {@link MappedSpellDictionary}.
+ * <p>
+ * The phonetic codes are computed once, here, instead of at every editor
+ * start. The file holds a sorted code table, a word table and a character
+ * pool:
+ * </p>
+ * <pre>
+ * int  MAGIC, VERSION, phonetic, codeCount, wordCount, charCount
+ * codeCount * (int codeStart, int codeLength, int firstWord, int wordCount)
+ * wordCount * (int wordStart, int wordLength)
+ * charCount * char
+ * </pre>
+ * <p>
+ * Codes are sorted with String.compareTo so they can be binary searched.
+ * The words of a code keep the order of the word list, like the buckets
+ * of SpellDictionary do for a sorted word list.
+ * </p>
+ */
+public class DictionaryCompiler {
+
+	/** Marks a compiled dictionary file ("JZD1")*/
+	public static final int MAGIC = 0x4A5A4431;
+	/** The version of the file layout*/
+	public static final int VERSION = 1;
+	/** The codes were computed by DoubleMeta*/
+	public static final int PHONETIC_DOUBLEMETA = 0;
+	/** The codes were computed by a GenericTransformator (aspell phonetic file)*/
+	public static final int PHONETIC_GENERIC = 1;
+
+	/** Size of the fixed header in bytes*/
+	static final int HEADER_SIZE = 6 * 4;
+	/** Size of one code table entry in bytes*/
+	static final int CODE_ENTRY_SIZE = 4 * 4;
+	/** Size of one word table entry in bytes*/
+	static final int WORD_ENTRY_SIZE = 2 * 4;
+
+	private DictionaryCompiler() {
+	}
+
+	/**
+	 * Compiles a word list using the DoubleMeta phonetic codes.
+	 */
+	public static void compile(File wordList, File output) throws IOException {
+		Reader in = new FileReader(wordList);
+		try {
+			compile(in, new DoubleMetaEncoder(), PHONETIC_DOUBLEMETA, output);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Compiles a word list using the codes of an aspell phonetic file.
+	 */
+	public static void compile(File wordList, File phonetic, File output) throws IOException {
+		Reader in = new FileReader(wordList);
+		try {
+			compile(in, new GenericTransformator(phonetic), PHONETIC_GENERIC, output);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void compile(Reader wordList, Transformator tf, int phonetic, File output) throws IOException {
+		BufferedReader in = new BufferedReader(wordList);
+		HashMap<String, List<String>> buckets = new HashMap<String, List<String>>();
+		int wordCount = 0;
+		String line;
+		while ((line = in.readLine()) != null) {
+			String code = tf.transform(line);
+			List<String> bucket = buckets.get(code);
+			if (bucket == null) {
+				bucket = new ArrayList<String>(2);
+				buckets.put(code, bucket);
+			}
+			bucket.add(line);
+			wordCount++;
+		}
+
+		String[] codes = buckets.keySet().toArray(new String[buckets.size()]);
+		Arrays.sort(codes);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output), 64 * 1024));
+		try {
+			int charCount = 0;
+			for (int i = 0; i < codes.length; i++) {
+				charCount += codes[i].length();
+				for (String word : buckets.get(codes[i]))
+					charCount += word.length();
+			}
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(phonetic);
+			out.writeInt(codes.length);
+			out.writeInt(wordCount);
+			out.writeInt(charCount);
+
+			// The code table. The characters of a code are followed by the
+			// characters of its words in the pool.
+			int charPos = 0;
+			int wordPos = 0;
+			for (int i = 0; i < codes.length; i++) {
+				List<String> bucket = buckets.get(codes[i]);
+				out.writeInt(charPos);
+				out.writeInt(codes[i].length());
+				out.writeInt(wordPos);
+				out.writeInt(bucket.size());
+				charPos += codes[i].length();
+				for (String word : bucket)
+					charPos += word.length();
+				wordPos += bucket.size();
+			}
+			// The word table
+			charPos = 0;
+			for (int i = 0; i < codes.length; i++) {
+				charPos += codes[i].length();
+				for (String word : buckets.get(codes[i])) {
+					out.writeInt(charPos);
+					out.writeInt(word.length());
+					charPos += word.length();
+				}
+			}
+			// The character pool
+			for (int i = 0; i < codes.length; i++) {
+				out.writeChars(codes[i]);
+				for (String word : buckets.get(codes[i]))
+					out.writeChars(word);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Usage: DictionaryCompiler wordlist output [phonetic]
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.out.println("Usage: DictionaryCompiler wordlist output [phonetic]");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		if (args.length > 2)
+			compile(new File(args[0]), new File(args[2]), new File(args[1]));
+		else
+			compile(new File(args[0]), new File(args[1]));
+		System.out.println("Compiled " + args[0] + " to " + args[1] + " in "
+			+ (System.currentTimeMillis() - start) + "ms");
+	}
+}
@@ -0,0 +1,119 @@
+package com.swabunga.spell.engine;
+
+/**
+ * Computes the same weighted edit distance as EditDistance, for use in
+ * inner loops.
+ * <p>
+ * The edit costs are read from the Configuration once, when the scorer is
+ * created. The dynamic programming rows are kept per thread and reused, so
+ * scoring a candidate allocates nothing. The bounded variant stops as soon
+ * as no cell of two consecutive rows is within the caller's limit, since no
+ * later cell can then come back under it.
+ * </p>
+ * <p>A scorer is immutable and can be shared between threads.</p>
+ */
+public final class DistanceScorer {
+
+	private final int del1;
+	private final int del2;
+	private final int swap;
+	private final int sub;
+
+	/** Three rows per thread: two rows back, the previous row and the current one*/
+	private static final ThreadLocal rows = new ThreadLocal() {
+		protected Object initialValue() {
+			return new int[3][32];
+		}
+	};
+
+	/**
+	 * Creates a scorer with the EDIT_DEL1, EDIT_DEL2, EDIT_SWAP and EDIT_SUB
+	 * costs of the configuration.
+	 */
+	public DistanceScorer(Configuration config) {
+		this(config.getInteger(Configuration.EDIT_DEL1), config.getInteger(Configuration.EDIT_DEL2),
+			config.getInteger(Configuration.EDIT_SWAP), config.getInteger(Configuration.EDIT_SUB));
+	}
+
+	/**
+	 * Creates a scorer with explicit costs.
+	 */
+	public DistanceScorer(int del1, int del2, int swap, int sub) {
+		this.del1 = del1;
+		this.del2 = del2;
+		this.swap = swap;
+		this.sub = sub;
+	}
+
+	/**
+	 * Returns the edit distance between the two words.
+	 */
+	public int getDistance(CharSequence word, CharSequence similar) {
+		return distance(word, similar, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the edit distance between the two words if it is no more than
+	 * limit, and limit + 1 otherwise.
+	 */
+	public int getDistance(CharSequence word, CharSequence similar, int limit) {
+		if (limit == Integer.MAX_VALUE)
+			return distance(word, similar, limit);
+		int distance = distance(word, similar, limit);
+		return (distance > limit) ? limit + 1 : distance;
+	}
+
+	private int distance(CharSequence word, CharSequence similar, int limit) {
+		int a_size = word.length() + 1;
+		int b_size = similar.length() + 1;
+		int[][] buffers = (int[][]) rows.get();
+		if (buffers[0].length < b_size) {
+			buffers = new int[3][Math.max(b_size, buffers[0].length * 2)];
+			rows.set(buffers);
+		}
+		int[] back = buffers[0];
+		int[] prev = buffers[1];
+		int[] cur = buffers[2];
+
+		prev[0] = 0;
+		for (int j = 1; j != b_size; ++j)
+			prev[j] = prev[j - 1] + del1;
+		int prevMin = 0;
+		int te;
+		for (int i = 1; i != a_size; ++i) {
+			char wc = word.charAt(i - 1);
+			cur[0] = prev[0] + del2;
+			int curMin = cur[0];
+			for (int j = 1; j != b_size; ++j) {
+				char sc = similar.charAt(j - 1);
+				int cell;
+				if (wc == sc) {
+					cell = prev[j - 1];
+				} else {
+					cell = sub + prev[j - 1];
+					if (i != 1 && j != 1 &&
+							wc == similar.charAt(j - 2) && word.charAt(i - 2) == sc) {
+						te = swap + back[j - 2];
+						if (te < cell) cell = te;
+					}
+					te = del1 + prev[j];
+					if (te < cell) cell = te;
+					te = del2 + cur[j - 1];
+					if (te < cell) cell = te;
+				}
+				cur[j] = cell;
+				if (cell < curMin) curMin = cell;
+			}
+			// Every later cell is built from one of the last two rows plus a
+			// non negative cost.
+			if (curMin > limit && prevMin > limit)
+				return Math.min(curMin, prevMin);
+			prevMin = curMin;
+			int[] t = back;
+			back = prev;
+			prev = cur;
+			cur = t;
+		}
+		return prev[b_size - 1];
+	}
+}
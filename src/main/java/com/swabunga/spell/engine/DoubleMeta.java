@@ -21,296 +21,296 @@ package com.swabunga.spell.engine;
  */
 class DoubleMeta implements Transformator{
 
-    private static final String[] myList = {
+    static final String[] myList = {
         "GN", "KN", "PN", "WR", "PS", ""
     };
-    private static final String[] list1 = {
+    static final String[] list1 = {
         "ACH", ""
     };
-    private static final String[] list2 = {
+    static final String[] list2 = {
         "BACHER", "MACHER", ""
     };
-    private static final String[] list3 = {
+    static final String[] list3 = {
         "CAESAR", ""
     };
-    private static final String[] list4 = {
+    static final String[] list4 = {
         "CHIA", ""
     };
-    private static final String[] list5 = {
+    static final String[] list5 = {
         "CH", ""
     };
-    private static final String[] list6 = {
+    static final String[] list6 = {
         "CHAE", ""
     };
-    private static final String[] list7 = {
+    static final String[] list7 = {
         "HARAC", "HARIS", ""
     };
-    private static final String[] list8 = {
+    static final String[] list8 = {
         "HOR", "HYM", "HIA", "HEM", ""
     };
-    private static final String[] list9 = {
+    static final String[] list9 = {
         "CHORE", ""
     };
-    private static final String[] list10 = {
+    static final String[] list10 = {
         "VAN ", "VON ", ""
     };
-    private static final String[] list11 = {
+    static final String[] list11 = {
         "SCH", ""
     };
-    private static final String[] list12 = {
+    static final String[] list12 = {
         "ORCHES", "ARCHIT", "ORCHID", ""
     };
-    private static final String[] list13 = {
+    static final String[] list13 = {
         "T", "S", ""
     };
-    private static final String[] list14 = {
+    static final String[] list14 = {
         "A", "O", "U", "E", ""
     };
-    private static final String[] list15 = {
+    static final String[] list15 = {
         "L", "R", "N", "M", "B", "H", "F", "V", "W", " ", ""
     };
-    private static final String[] list16 = {
+    static final String[] list16 = {
         "MC", ""
     };
-    private static final String[] list17 = {
+    static final String[] list17 = {
         "CZ", ""
     };
-    private static final String[] list18 = {
+    static final String[] list18 = {
         "WICZ", ""
     };
-    private static final String[] list19 = {
+    static final String[] list19 = {
         "CIA", ""
     };
-    private static final String[] list20 = {
+    static final String[] list20 = {
         "CC", ""
     };
-    private static final String[] list21 = {
+    static final String[] list21 = {
         "I", "E", "H", ""
     };
-    private static final String[] list22 = {
+    static final String[] list22 = {
         "HU", ""
     };
-    private static final String[] list23 = {
+    static final String[] list23 = {
         "UCCEE", "UCCES", ""
     };
-    private static final String[] list24 = {
+    static final String[] list24 = {
         "CK", "CG", "CQ", ""
     };
-    private static final String[] list25 = {
+    static final String[] list25 = {
         "CI", "CE", "CY", ""
     };
-    private static final String[] list26 = {
+    static final String[] list26 = {
         "CIO", "CIE", "CIA", ""
     };
-    private static final String[] list27 = {
+    static final String[] list27 = {
         " C", " Q", " G", ""
     };
-    private static final String[] list28 = {
+    static final String[] list28 = {
         "C", "K", "Q", ""
     };
-    private static final String[] list29 = {
+    static final String[] list29 = {
         "CE", "CI", ""
     };
-    private static final String[] list30 = {
+    static final String[] list30 = {
         "DG", ""
     };
-    private static final String[] list31 = {
+    static final String[] list31 = {
         "I", "E", "Y", ""
     };
-    private static final String[] list32 = {
+    static final String[] list32 = {
         "DT", "DD", ""
     };
-    private static final String[] list33 = {
+    static final String[] list33 = {
         "B", "H", "D", ""
     };
-    private static final String[] list34 = {
+    static final String[] list34 = {
         "B", "H", "D", ""
     };
-    private static final String[] list35 = {
+    static final String[] list35 = {
         "B", "H", ""
     };
-    private static final String[] list36 = {
+    static final String[] list36 = {
         "C", "G", "L", "R", "T", ""
     };
-    private static final String[] list37 = {
+    static final String[] list37 = {
         "EY", ""
     };
-    private static final String[] list38 = {
+    static final String[] list38 = {
         "LI", ""
     };
-    private static final String[] list39 = {
+    static final String[] list39 = {
         "ES", "EP", "EB", "EL", "EY", "IB", "IL", "IN", "IE", "EI", "ER",
         ""
     };
-    private static final String[] list40 = {
+    static final String[] list40 = {
         "ER", ""
     };
-    private static final String[] list41 = {
+    static final String[] list41 = {
         "DANGER", "RANGER", "MANGER", ""
     };
-    private static final String[] list42 = {
+    static final String[] list42 = {
         "E", "I", ""
     };
-    private static final String[] list43 = {
+    static final String[] list43 = {
         "RGY", "OGY", ""
     };
-    private static final String[] list44 = {
+    static final String[] list44 = {
         "E", "I", "Y", ""
     };
-    private static final String[] list45 = {
+    static final String[] list45 = {
         "AGGI", "OGGI", ""
     };
-    private static final String[] list46 = {
+    static final String[] list46 = {
         "VAN ", "VON ", ""
     };
-    private static final String[] list47 = {
+    static final String[] list47 = {
         "SCH", ""
     };
-    private static final String[] list48 = {
+    static final String[] list48 = {
         "ET", ""
     };
-    private static final String[] list49 = {
+    static final String[] list49 = {
         "IER ", ""
     };
-    private static final String[] list50 = {
+    static final String[] list50 = {
         "JOSE", ""
     };
-    private static final String[] list51 = {
+    static final String[] list51 = {
         "SAN ", ""
     };
-    private static final String[] list52 = {
+    static final String[] list52 = {
         "SAN ", ""
     };
-    private static final String[] list53 = {
+    static final String[] list53 = {
         "JOSE", ""
     };
-    private static final String[] list54 = {
+    static final String[] list54 = {
         "L", "T", "K", "S", "N", "M", "B", "Z", ""
     };
-    private static final String[] list55 = {
+    static final String[] list55 = {
         "S", "K", "L", ""
     };
-    private static final String[] list56 = {
+    static final String[] list56 = {
         "ILLO", "ILLA", "ALLE", ""
     };
-    private static final String[] list57 = {
+    static final String[] list57 = {
         "AS", "OS", ""
     };
-    private static final String[] list58 = {
+    static final String[] list58 = {
         "A", "O", ""
     };
-    private static final String[] list59 = {
+    static final String[] list59 = {
         "ALLE", ""
     };
-    private static final String[] list60 = {
+    static final String[] list60 = {
         "UMB", ""
     };
-    private static final String[] list61 = {
+    static final String[] list61 = {
         "ER", ""
     };
-    private static final String[] list62 = {
+    static final String[] list62 = {
         "P", "B", ""
     };
-    private static final String[] list63 = {
+    static final String[] list63 = {
         "IE", ""
     };
-    private static final String[] list64 = {
+    static final String[] list64 = {
         "ME", "MA", ""
     };
-    private static final String[] list65 = {
+    static final String[] list65 = {
         "ISL", "YSL", ""
     };
-    private static final String[] list66 = {
+    static final String[] list66 = {
         "SUGAR", ""
     };
-    private static final String[] list67 = {
+    static final String[] list67 = {
         "SH", ""
     };
-    private static final String[] list68 = {
+    static final String[] list68 = {
         "HEIM", "HOEK", "HOLM", "HOLZ", ""
     };
-    private static final String[] list69 = {
+    static final String[] list69 = {
         "SIO", "SIA", ""
     };
-    private static final String[] list70 = {
+    static final String[] list70 = {
         "SIAN", ""
     };
-    private static final String[] list71 = {
+    static final String[] list71 = {
         "M", "N", "L", "W", ""
     };
-    private static final String[] list72 = {
+    static final String[] list72 = {
         "Z", ""
     };
-    private static final String[] list73 = {
+    static final String[] list73 = {
         "Z", ""
     };
-    private static final String[] list74 = {
+    static final String[] list74 = {
         "SC", ""
     };
-    private static final String[] list75 = {
+    static final String[] list75 = {
         "OO", "ER", "EN", "UY", "ED", "EM", ""
     };
-    private static final String[] list76 = {
+    static final String[] list76 = {
         "ER", "EN", ""
     };
-    private static final String[] list77 = {
+    static final String[] list77 = {
         "I", "E", "Y", ""
     };
-    private static final String[] list78 = {
+    static final String[] list78 = {
         "AI", "OI", ""
     };
-    private static final String[] list79 = {
+    static final String[] list79 = {
         "S", "Z", ""
     };
-    private static final String[] list80 = {
+    static final String[] list80 = {
         "TION", ""
     };
-    private static final String[] list81 = {
+    static final String[] list81 = {
         "TIA", "TCH", ""
     };
-    private static final String[] list82 = {
+    static final String[] list82 = {
         "TH", ""
     };
-    private static final String[] list83 = {
+    static final String[] list83 = {
         "TTH", ""
     };
-    private static final String[] list84 = {
+    static final String[] list84 = {
         "OM", "AM", ""
     };
-    private static final String[] list85 = {
+    static final String[] list85 = {
         "VAN ", "VON ", ""
     };
-    private static final String[] list86 = {
+    static final String[] list86 = {
         "SCH", ""
     };
-    private static final String[] list87 = {
+    static final String[] list87 = {
         "T", "D", ""
     };
-    private static final String[] list88 = {
+    static final String[] list88 = {
         "WR", ""
     };
-    private static final String[] list89 = {
+    static final String[] list89 = {
         "WH", ""
     };
-    private static final String[] list90 = {
+    static final String[] list90 = {
         "EWSKI", "EWSKY", "OWSKI", "OWSKY", ""
     };
-    private static final String[] list91 = {
+    static final String[] list91 = {
         "SCH", ""
     };
-    private static final String[] list92 = {
+    static final String[] list92 = {
         "WICZ", "WITZ", ""
     };
-    private static final String[] list93 = {
+    static final String[] list93 = {
         "IAU", "EAU", ""
     };
-    private static final String[] list94 = {
+    static final String[] list94 = {
         "AU", "OU", ""
     };
-    private static final String[] list95 = {
+    static final String[] list95 = {
         "C", "X", ""
     };
-    private static final String[] list96 = {
+    static final String[] list96 = {
         "ZO", "ZI", "ZA", ""
     };
 
@@ -0,0 +1,663 @@
+package com.swabunga.spell.engine;
+
+/**
+ * A DoubleMeta encoder that does not allocate.
+ * <p>
+ * DoubleMeta builds an upper case copy of every word and a substring for
+ * every pattern it tests. This encoder upper cases the word into a reusable
+ * per thread buffer and compares the DoubleMeta pattern lists against that
+ * buffer in place. The code is appended to a buffer supplied by the caller,
+ * and the word can be any window of a CharSequence.
+ * </p>
+ * <p>
+ * The codes are the same as those of DoubleMeta.transform; run main with a
+ * word list to check that on a corpus. Words that are not plain ASCII, or
+ * a default locale with its own casing rules, fall back to
+ * String.toUpperCase, as DoubleMeta does.
+ * </p>
+ * <p>This class is thread safe.</p>
+ */
+public final class DoubleMetaEncoder implements Transformator {
+
+  /** DoubleMeta pads the word with this many spaces*/
+  private static final int PADDING = 5;
+
+  /** Per thread buffers for the upper cased word and the code*/
+  private static final ThreadLocal buffers = new ThreadLocal() {
+    protected Object initialValue() {
+      return new Buffers();
+    }
+  };
+
+  private static final class Buffers {
+    char[] in = new char[64];
+    final StringBuilder code = new StringBuilder(64);
+  }
+
+  /**
+   * Returns the phonetic code of the word.
+   */
+  public String transform (String word) {
+    StringBuilder code = ((Buffers) buffers.get()).code;
+    code.setLength(0);
+    encode(word, 0, word.length(), code);
+    return code.toString();
+  }
+
+  /**
+   * Appends the phonetic code of word[start, end) to primary.
+   * @param word The text holding the word
+   * @param start The index of the first character of the word
+   * @param end The index after the last character of the word
+   * @param primary Receives the code
+   */
+  public void encode (CharSequence word, int start, int end, StringBuilder primary) {
+    Buffers b = (Buffers) buffers.get();
+    int length = upperCase(word, start, end, b);
+    char[] in = b.in;
+    int current = 0;
+    int last = length - 1;
+    boolean isSlavoGermaic = SlavoGermanic(in, length);
+    if (stringAt(in, length, 0, 2, DoubleMeta.myList))
+      current += 1;
+    if (in[0] == 'X') {
+      primary.append('S');
+      current += 1;
+    }
+    while (current < length ) {
+      switch (in[current]) {
+        case 'A':case 'E':case 'I':case 'O':case 'U':case 'Y':
+          if (current == 0)
+            primary.append('A');
+          current += 1;
+          break;
+        case 'B':
+          primary.append('P');
+          if (in[current + 1] == 'B')
+            current += 2;
+          else
+            current += 1;
+          break;
+        case 'C':
+          if ((current > 1) && !isVowel(in, current - 2, length) && stringAt(in, length, (current
+              - 1), 3, DoubleMeta.list1) && (in[current + 2] != 'I') && (in[
+              current + 2] != 'E') || stringAt(in, length, (current - 2), 6, DoubleMeta.list2)) {
+            primary.append('K');
+            current += 2;
+            break;
+          }
+          if ((current == 0) && stringAt(in, length, current, 6, DoubleMeta.list3)) {
+            primary.append('S');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current, 4, DoubleMeta.list4)) {
+            primary.append('K');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list5)) {
+            if ((current > 0) && stringAt(in, length, current, 4, DoubleMeta.list6)) {
+              primary.append('K' );
+              current += 2;
+              break;
+            }
+            if ((current == 0) && stringAt(in, length, (current + 1), 5, DoubleMeta.list7) ||
+                stringAt(in, length, current + 1, 3, DoubleMeta.list8) && !stringAt(in, length, 0, 5,
+                DoubleMeta.list9)) {
+              primary.append('K' );
+              current += 2;
+              break;
+            }
+            if (stringAt(in, length, 0, 4, DoubleMeta.list10) || stringAt(in, length, 0, 3, DoubleMeta.list11) ||
+                stringAt(in, length, current - 2, 6, DoubleMeta.list12) || stringAt(in, length, current
+                + 2, 1, DoubleMeta.list13) || (stringAt(in, length, current - 1, 1, DoubleMeta.list14) ||
+                (current == 0)) && stringAt(in, length, current + 2, 1, DoubleMeta.list15)) {
+              primary.append('K');
+            }
+            else {
+              if (current > 0) {
+                if (stringAt(in, length, 0, 2, DoubleMeta.list16))
+                  primary.append('K');
+                else
+                  primary.append('X');
+              }
+              else {
+                primary.append('X');
+              }
+            }
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list17) && !stringAt(in, length, current, 4,
+              DoubleMeta.list18)) {
+            primary.append('S');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list19)) {
+            primary.append('X');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list20) && !((current == 1) && in[0]
+              == 'M')) {
+            if (stringAt(in, length, current + 2, 1, DoubleMeta.list21) && !stringAt(in, length, current
+                + 2, 2, DoubleMeta.list22)) {
+              if (((current == 1) && (in[current - 1] == 'A')) || stringAt(in, length,
+                  (current - 1), 5, DoubleMeta.list23))
+                primary.append("KS");
+              else
+                primary.append('X');
+              current += 3;
+              break;
+            }
+            else {
+              primary.append('K');
+              current += 2;
+              break;
+            }
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list24)) {
+            primary.append('K');
+            current += 2;
+            break;
+          }
+          else if (stringAt(in, length, current, 2, DoubleMeta.list25)) {
+            primary.append('S');
+            current += 2;
+            break;
+          }
+          
+          primary.append('K');
+          if (stringAt(in, length, current + 1, 2, DoubleMeta.list27))
+            current += 3;
+          else if (stringAt(in, length, current + 1, 1, DoubleMeta.list28) && !stringAt(in, length, current
+              + 1, 2, DoubleMeta.list29))
+            current += 2;
+          else
+            current += 1;
+          break;
+        case 'D':
+          if (stringAt(in, length, current, 2, DoubleMeta.list30)) {
+            if (stringAt(in, length, current + 2, 1, DoubleMeta.list31)) {
+              primary.append('J');
+              current += 3;
+              break;
+            }
+            else {
+              primary.append("TK");
+              current += 2;
+              break;
+            }
+          }
+          primary.append('T');
+          if (stringAt(in, length, current, 2, DoubleMeta.list32)) {
+            current += 2;
+          } else {
+            current += 1;
+          }
+          break;
+        case 'F':
+          if (in[current + 1] == 'F')
+            current += 2;
+          else
+            current += 1;
+          primary.append('F');
+          break;
+        case 'G':
+          if (in[current + 1] == 'H') {
+            if ((current > 0) && !isVowel(in, current - 1, length)) {
+              primary.append('K');
+              current += 2;
+              break;
+            }
+            if (current < 3) {
+              if (current == 0) {
+                if (in[current + 2] == 'I')
+                  primary.append('J');
+                else
+                  primary.append('K');
+                current += 2;
+                break;
+              }
+            }
+            if ((current > 1) && stringAt(in, length, current - 2, 1, DoubleMeta.list33) || ((current > 2)
+                && stringAt(in, length, current - 3, 1, DoubleMeta.list34)) || ((current > 3) &&
+                stringAt(in, length, current - 4, 1, DoubleMeta.list35))) {
+              current += 2;
+              break;
+            }
+            else {
+              if ((current > 2) && (in[current - 1] == 'U') && stringAt(in, length,
+                  current - 3, 1, DoubleMeta.list36)) {
+                primary.append('F');
+              }
+              else {
+                if ((current > 0) && (in[current - 1] != 'I'))
+                  primary.append('K');
+              }
+              current += 2;
+              break;
+            }
+          }
+          if (in[current + 1] == 'N') {
+            if ((current == 1) && isVowel(in, 0, length) && !isSlavoGermaic) {
+              primary.append("KN");
+            }
+            else {
+              if (!stringAt(in, length, current + 2, 2, DoubleMeta.list37) && (in[current
+                  + 1] != 'Y') && !isSlavoGermaic) {
+                primary.append("N");
+              }
+              else {
+                primary.append("KN");
+              }
+            }
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current + 1, 2, DoubleMeta.list38) && !isSlavoGermaic) {
+            primary.append("KL");
+            current += 2;
+            break;
+          }
+          if ((current == 0) && ((in[current + 1] == 'Y') || stringAt(in, length,
+              current + 1, 2, DoubleMeta.list39))) {
+            primary.append('K');
+            current += 2;
+            break;
+          }
+          if ((stringAt(in, length, current + 1, 2, DoubleMeta.list40) || (in[current +
+              1] == 'Y')) && !stringAt(in, length, 0, 6, DoubleMeta.list41) && !stringAt(in, length, current
+              - 1, 1, DoubleMeta.list42) && !stringAt(in, length, current - 1, 3, DoubleMeta.list43)) {
+            primary.append('K');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current + 1, 1, DoubleMeta.list44) || stringAt(in, length, current -
+              1, 4, DoubleMeta.list45)) {
+            if (stringAt(in, length, 0, 4, DoubleMeta.list46) || stringAt(in, length, 0, 3, DoubleMeta.list47) ||
+                stringAt(in, length, current + 1, 2, DoubleMeta.list48)) {
+              primary.append('K');
+            }
+            else {
+                primary.append('J');
+            }
+            current += 2;
+            break;
+          }
+          if (in[current + 1] == 'G')
+            current += 2;
+          else
+            current += 1;
+          primary.append('K');
+          break;
+        case 'H':
+          if (((current == 0) || isVowel(in, current - 1, length)) && isVowel(in, current +
+              1, length)) {
+            primary.append('H');
+            current += 2;
+          }
+          else {
+            current += 1;
+          }
+          break;
+        case 'J':
+          if (stringAt(in, length, current, 4, DoubleMeta.list50) || stringAt(in, length, 0, 4, DoubleMeta.list51)) {
+            if ((current == 0) && (in[current + 4] == ' ') || stringAt(in, length,
+                0, 4, DoubleMeta.list52)) {
+              primary.append('H');
+            }
+            else {
+              primary.append('J');
+            }
+            current += 1;
+            break;
+          }
+          if ((current == 0) && !stringAt(in, length, current, 4, DoubleMeta.list53)) {
+            primary.append('J');
+          }
+          else {
+            if (isVowel(in, current - 1, length) && !isSlavoGermaic && ((in[current
+                + 1] == 'A') || in[current + 1] == 'O')) {
+              primary.append('J' );
+            }
+            else {
+              if (current == last) {
+                primary.append('J' );
+              }
+              else {
+                if (!stringAt(in, length, current + 1, 1, DoubleMeta.list54) && !stringAt(in, length,
+                    current - 1, 1, DoubleMeta.list55)) {
+                  primary.append('J');
+                }
+              }
+            }
+          }
+          if (in[current + 1] == 'J')
+            current += 2;
+          else
+            current += 1;
+          break;
+        case 'K':
+          if (in[current + 1] == 'K')
+            current += 2;
+          else
+            current += 1;
+          primary.append('K');
+          break;
+        case 'L':
+          if (in[current + 1] == 'L') {
+            if (((current == (length - 3)) && stringAt(in, length, current - 1, 4,
+                DoubleMeta.list56)) || ((stringAt(in, length, last - 1, 2, DoubleMeta.list57) || stringAt(in, length,
+                last, 1, DoubleMeta.list58)) && stringAt(in, length, current - 1, 4, DoubleMeta.list59))) {
+              primary.append('L' );
+              current += 2;
+              break;
+            }
+            current += 2;
+          }
+          else
+            current += 1;
+          primary.append('L');
+          break;
+        case 'M':
+          if ((stringAt(in, length, current - 1, 3, DoubleMeta.list60) && (((current + 1) == last)
+              || stringAt(in, length, current + 2, 2, DoubleMeta.list61))) || (in[current
+              + 1] == 'M'))
+            current += 2;
+          else
+            current += 1;
+          primary.append('M');
+          break;
+        case 'N':
+          if (in[current + 1] == 'N')
+            current += 2;
+          else
+            current += 1;
+          primary.append('N');
+          break;
+        case 'P':
+          if (in[current + 1] == 'N') {
+            primary.append('F');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current + 1, 1, DoubleMeta.list62))
+            current += 2;
+          else
+            current += 1;
+          primary.append('P');
+          break;
+        case 'Q':
+          if (in[current + 1] == 'Q')
+            current += 2;
+          else
+            current += 1;
+          primary.append('K');
+          break;
+        case 'R':
+          if ((current == last) && !isSlavoGermaic && stringAt(in, length, current
+              - 2, 2, DoubleMeta.list63) && !stringAt(in, length, current - 4, 2, DoubleMeta.list64)) {
+//            primary.append("");
+          } else
+            primary.append('R');
+          if (in[current + 1] == 'R')
+            current += 2;
+          else
+            current += 1;
+          break;
+        case 'S':
+          if (stringAt(in, length, current - 1, 3, DoubleMeta.list65)) {
+            current += 1;
+            break;
+          }
+          if ((current == 0) && stringAt(in, length, current, 5, DoubleMeta.list66)) {
+            primary.append('X');
+            current += 1;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list67)) {
+            if (stringAt(in, length, current + 1, 4, DoubleMeta.list68))
+              primary.append('S');
+            else
+              primary.append('X');
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current, 3, DoubleMeta.list69) || stringAt(in, length, current, 4,
+              DoubleMeta.list70)) {
+            primary.append('S');
+            current += 3;
+            break;
+          }
+          if (((current == 0) && stringAt(in, length, current + 1, 1, DoubleMeta.list71)) || stringAt(in, length,
+              current + 1, 1, DoubleMeta.list72)) {
+            primary.append('S');
+            if (stringAt(in, length, current + 1, 1, DoubleMeta.list73))
+              current += 2;
+            else
+              current += 1;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list74)) {
+            if (in[current + 2] == 'H')
+              if (stringAt(in, length, current + 3, 2, DoubleMeta.list75)) {
+                if (stringAt(in, length, current + 3, 2, DoubleMeta.list76)) {
+                  primary.append("X");
+                }
+                else {
+                  primary.append("SK");
+                }
+                current += 3;
+                break;
+              }
+              else {
+                primary.append('X');
+                current += 3;
+                break;
+              }
+            if (stringAt(in, length, current + 2, 1, DoubleMeta.list77)) {
+              primary.append('S');
+              current += 3;
+              break;
+            }
+            primary.append("SK");
+            current += 3;
+            break;
+          }
+          if ((current == last) && stringAt(in, length, current - 2, 2, DoubleMeta.list78)) {
+            //primary.append("");
+          } else
+            primary.append('S');
+          if (stringAt(in, length, current + 1, 1, DoubleMeta.list79))
+            current += 2;
+          else
+            current += 1;
+          break;
+        case 'T':
+          if (stringAt(in, length, current, 4, DoubleMeta.list80)) {
+            primary.append('X');
+            current += 3;
+            break;
+          }
+          if (stringAt(in, length, current, 3, DoubleMeta.list81)) {
+            primary.append('X');
+            current += 3;
+            break;
+          }
+          if (stringAt(in, length, current, 2, DoubleMeta.list82) || stringAt(in, length, current, 3,
+              DoubleMeta.list83)) {
+            if (stringAt(in, length, (current + 2), 2, DoubleMeta.list84) || stringAt(in, length, 0, 4,
+                DoubleMeta.list85) || stringAt(in, length, 0, 3, DoubleMeta.list86)) {
+              primary.append('T');
+            }
+            else {
+              primary.append('0');
+            }
+            current += 2;
+            break;
+          }
+          if (stringAt(in, length, current + 1, 1, DoubleMeta.list87)) {
+            current += 2;
+          }
+          else
+            current += 1;
+          primary.append('T');
+          break;
+        case 'V':
+          if (in[current + 1] == 'V')
+            current += 2;
+          else
+            current += 1;
+          primary.append('F');
+          break;
+        case 'W':
+          if (stringAt(in, length, current, 2, DoubleMeta.list88)) {
+            primary.append('R');
+            current += 2;
+            break;
+          }
+          if ((current == 0) && (isVowel(in, current + 1, length) || stringAt(in, length, current,
+              2, DoubleMeta.list89))) {
+            primary.append('A');
+          }
+          if (((current == last) && isVowel(in, current - 1, length)) || stringAt(in, length, current
+              - 1, 5, DoubleMeta.list90) || stringAt(in, length, 0, 3, DoubleMeta.list91)) {
+            primary.append('F');
+            current += 1;
+            break;
+          }
+          if (stringAt(in, length, current, 4, DoubleMeta.list92)) {
+            primary.append("TS");
+            current += 4;
+            break;
+          }
+          current += 1;
+          break;
+        case 'X':
+          if (!((current == last) && (stringAt(in, length, current - 3, 3, DoubleMeta.list93) ||
+              stringAt(in, length, current - 2, 2, DoubleMeta.list94))))
+            primary.append("KS");
+          if (stringAt(in, length, current + 1, 1, DoubleMeta.list95))
+            current += 2;
+          else
+            current += 1;
+          break;
+        case 'Z':
+          if (in[current + 1] == 'H') {
+            primary.append('J');
+            current += 2;
+            break;
+          }            
+          else {
+            primary.append('S');
+          }
+          if (in[current + 1] == 'Z')
+            current += 2;
+          else
+            current += 1;
+          break;
+        default:
+          current += 1;
+      }
+    }
+  }
+
+  /** Upper cases and pads the word into the buffer, returns the padded length*/
+  private static int upperCase (CharSequence word, int start, int end, Buffers b) {
+    int length = end - start;
+    boolean simple = true;
+    String language = java.util.Locale.getDefault().getLanguage();
+    // These languages have their own rules for i, even in ASCII
+    if (language.equals("tr") || language.equals("az") || language.equals("lt"))
+      simple = false;
+    for (int i = start; simple && i < end; i++) {
+      if (word.charAt(i) >= 0x80)
+        simple = false;
+    }
+    String upper = null;
+    if (!simple) {
+      upper = word.subSequence(start, end).toString().toUpperCase();
+      length = upper.length();
+    }
+    if (b.in.length < length + PADDING)
+      b.in = new char[Math.max(length + PADDING, b.in.length * 2)];
+    char[] in = b.in;
+    if (simple) {
+      for (int i = 0; i < length; i++) {
+        char ch = word.charAt(start + i);
+        in[i] = (ch >= 'a' && ch <= 'z') ? (char) (ch - ('a' - 'A')) : ch;
+      }
+    } else {
+      upper.getChars(0, length, in, 0);
+    }
+    for (int i = 0; i < PADDING; i++)
+      in[length + i] = ' ';
+    return length + PADDING;
+  }
+
+  private final static boolean SlavoGermanic (char[] in, int length) {
+    for (int i = 0; i < length; i++) {
+      if (in[i] == 'W' || in[i] == 'K')
+        return  true;
+      // WITZ is covered by W
+      if (in[i] == 'C' && i + 1 < length && in[i + 1] == 'Z')
+        return  true;
+    }
+    return  false;
+  }
+
+  private final static boolean isVowel (char[] in, int at, int length) {
+    if ((at < 0) || (at >= length))
+      return  false;
+    char it = in[at];
+    if ((it == 'A') || (it == 'E') || (it == 'I') || (it == 'O') || (it ==
+        'U') || (it == 'Y'))
+      return  true;
+    return  false;
+  }
+
+  /** Returns true if in[start, start + length) equals one of the list entries*/
+  private final static boolean stringAt (char[] in, int inLength, int start, int length, String[] list) {
+    if ((start < 0) || (start >= inLength) || list.length == 0 || start + length > inLength)
+      return  false;
+    for (int i = 0; i < list.length; i++) {
+      String entry = list[i];
+      if (entry.length() != length)
+        continue;
+      int k = 0;
+      while (k < length && entry.charAt(k) == in[start + k])
+        k++;
+      if (k == length)
+        return  true;
+    }
+    return  false;
+  }
+
+  /**
+   * Checks the encoder against DoubleMeta on a word list, one word per
+   * line, and reports the words whose codes differ.
+   * Usage: DoubleMetaEncoder wordlist
+   */
+  public static void main (String[] args) throws Exception {
+    java.io.BufferedReader in = new java.io.BufferedReader(new java.io.FileReader(args[0]));
+    DoubleMeta reference = new DoubleMeta();
+    DoubleMetaEncoder encoder = new DoubleMetaEncoder();
+    int words = 0;
+    int differences = 0;
+    String line;
+    while ((line = in.readLine()) != null) {
+      words++;
+      String expected = reference.transform(line);
+      String actual = encoder.transform(line);
+      if (!expected.equals(actual)) {
+        differences++;
+        System.out.println(line + ": " + expected + " != " + actual);
+      }
+    }
+    in.close();
+    System.out.println(words + " words, " + differences + " differences");
+  }
+}
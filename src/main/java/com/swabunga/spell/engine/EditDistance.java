@@ -8,38 +8,29 @@ import java.io.InputStreamReader;
  */
 public class EditDistance {
 
+	/**
+	 * The costs getDistance(String, String) uses, read on each call.
+	 * @deprecated Shared by every caller, pass the costs to
+	 * getDistance(String, String, Configuration) instead
+	 */
+	@Deprecated
 	public static Configuration config = Configuration.getConfiguration();
 
+    /** Returns the weighted edit distance between the two words, with the
+     *  costs of config.
+     */
     public static final int getDistance(String word, String similar) {
-        int a_size = word.length() + 1;
-        int b_size = similar.length() + 1;
-        int[][] matrix = new int[a_size][b_size];
-        matrix[0][0] = 0;
-        for (int j = 1; j != b_size; ++j)
-            matrix[0][j] = matrix[0][j - 1] + config.getInteger(Configuration.EDIT_DEL1);
-        word = " " + word;
-        similar = " " + similar;
-        int te;
-        for (int i = 1; i != a_size; ++i) {
-            matrix[i][0] = matrix[i - 1][0] + config.getInteger(Configuration.EDIT_DEL2);
-            for (int j = 1; j != b_size; ++j) {
-                if (word.charAt(i) == similar.charAt(j)) {
-                    matrix[i][j] = matrix[i - 1][j - 1];
-                } else {
-                    matrix[i][j] = config.getInteger(Configuration.EDIT_SUB) + matrix[i - 1][j - 1];
-                    if (i != 1 && j != 1 &&
-                            word.charAt(i) == similar.charAt(j - 1) && word.charAt(i - 1) == similar.charAt(j)) {
-                        te = config.getInteger(Configuration.EDIT_SWAP) + matrix[i - 2][j - 2];
-                        if (te < matrix[i][j]) matrix[i][j] = te;
-                    }
-                    te = config.getInteger(Configuration.EDIT_DEL1) + matrix[i - 1][j];
-                    if (te < matrix[i][j]) matrix[i][j] = te;
-                    te = config.getInteger(Configuration.EDIT_DEL2) + matrix[i][j - 1];
-                    if (te < matrix[i][j]) matrix[i][j] = te;
-                }
-            }
-        }
-        return matrix[a_size - 1][b_size - 1];
+        return getDistance(word, similar, config);
+    }
+
+    /** Returns the weighted edit distance between the two words, with the
+     *  EDIT_DEL1, EDIT_DEL2, EDIT_SWAP and EDIT_SUB costs of the configuration.
+     *  <p>The costs are read once per call; use a DistanceScorer to score
+     *  many words against the same costs.</p>
+     */
+    public static final int getDistance(String word, String similar, Configuration costs) {
+        SpellEngineStats.getInstance().recordEditDistances(1);
+        return new DistanceScorer(costs).getDistance(word, similar);
     }
 
     public static void main(String[] args) throws Exception {
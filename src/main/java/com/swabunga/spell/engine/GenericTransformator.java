@@ -16,43 +16,189 @@ public class GenericTransformator implements Transformator{
 
     Object[] ruleArray=null;
 
+    // The rules that can match at a position, by the character found there.
+    // Each array holds indexes into ruleArray in their original order.
+    private static final int DIRECT_CHARS=256;
+    private int[][] rulesByChar=null;
+    private HashMap rulesByOtherChar=null;
+    private int[] rulesForAnyChar=null;
+
+    // The word being transformed, one buffer per thread
+    private static final ThreadLocal buffers=new ThreadLocal(){
+        protected Object initialValue(){
+            return new char[64];
+        }
+    };
+
     public GenericTransformator(File phonetic)throws IOException{
         buildRules(new BufferedReader(new FileReader(phonetic)));
+        compileRules();
     }
 
     /**
     * Returns the phonetic code of the word.
+    * <p>The rules are tried in file order, like aspell does, but only the
+    * ones that can match the character at the current position.</p>
     */
-    public String transform(String word) {       
+    public String transform(String word) {
         if(ruleArray==null)
             return null;
-        TransformationRule rule;
-        StringBuffer str=new StringBuffer(word.toUpperCase());
-        int strLength=str.length();
+        char[] str=(char[])buffers.get();
+        int strLength=upperCase(word, str);
+        if(strLength<0){
+            // Case mapping changed the length, or the buffer is too small
+            String upper=word.toUpperCase();
+            strLength=upper.length();
+            str=ensureCapacity(str, strLength);
+            upper.getChars(0, strLength, str, 0);
+        }
         int startPos=0, add=1;
 
         while(startPos<strLength){
-            //System.out.println("StartPos:"+startPos);
             add=1;
-            for(int i=0;i<ruleArray.length;i++){
-                //System.out.println("Testing rule#:"+i);
-                rule=(TransformationRule)ruleArray[i];
+            int[] candidates=rulesAt(str[startPos]);
+            for(int c=0;c<candidates.length;c++){
+                TransformationRule rule=(TransformationRule)ruleArray[candidates[c]];
                 if(rule.startsWithExp() && startPos>0)
                     continue;
                 if(startPos+rule.lengthOfMatch()>=strLength)
                     continue;
-                if(rule.isMatching(str,startPos)){
-                    str.replace(startPos,startPos+rule.getTakeOut(),rule.getReplaceExp());
-                    add=rule.getReplaceExp().length();
-                    strLength-=rule.getTakeOut();
-                    strLength+=add;
-                    //System.out.println("Replacing with rule#:"+i+" add="+add);
+                if(rule.isMatching(str,strLength,startPos)){
+                    char[] replace=rule.replace;
+                    int takeOut=rule.getTakeOut();
+                    int newLength=strLength-takeOut+replace.length;
+                    if(newLength>str.length)
+                        str=ensureCapacity(str, newLength);
+                    System.arraycopy(str, startPos+takeOut, str, startPos+replace.length, strLength-startPos-takeOut);
+                    System.arraycopy(replace, 0, str, startPos, replace.length);
+                    add=replace.length;
+                    strLength=newLength;
                     break;
                 }
             }
             startPos+=add;
         }
-        return str.toString();
+        return new String(str, 0, strLength);
+    }
+
+    /** Upper cases the word into the buffer, or returns -1 if that can not
+     *  be done char by char with the same result as String.toUpperCase.*/
+    private static int upperCase(String word, char[] str){
+        int length=word.length();
+        if(length>str.length)
+            return -1;
+        String language=Locale.getDefault().getLanguage();
+        // These languages have their own rules for i, even in ASCII
+        if(language.equals("tr") || language.equals("az") || language.equals("lt"))
+            return -1;
+        for(int i=0;i<length;i++){
+            char ch=word.charAt(i);
+            if(ch>=0x80)
+                return -1;
+            str[i]=(ch>='a' && ch<='z') ? (char)(ch-('a'-'A')) : ch;
+        }
+        return length;
+    }
+
+    private static char[] ensureCapacity(char[] str, int length){
+        if(length<=str.length)
+            return str;
+        char[] bigger=new char[Math.max(length, str.length*2)];
+        System.arraycopy(str, 0, bigger, 0, str.length);
+        buffers.set(bigger);
+        return bigger;
+    }
+
+    private int[] rulesAt(char ch){
+        if(ch<DIRECT_CHARS)
+            return rulesByChar[ch];
+        int[] rules=(int[])rulesByOtherChar.get(Character.valueOf(ch));
+        return (rules==null) ? rulesForAnyChar : rules;
+    }
+
+    // Indexes the rules by the characters they can start matching at.
+    // A rule is decided by its first plain character, which is compared
+    // with the current position even after a (multi) group. A rule made
+    // only of groups can only match the characters of its first group,
+    // and a rule without any match characters can match anywhere.
+    private void compileRules(){
+        ArrayList[] direct=new ArrayList[DIRECT_CHARS];
+        HashMap other=new HashMap();
+        ArrayList any=new ArrayList();
+        for(int i=0;i<ruleArray.length;i++){
+            char[] match=((TransformationRule)ruleArray[i]).match;
+            String first=firstChars(match);
+            Integer index=Integer.valueOf(i);
+            if(first==null){
+                any.add(index);
+                for(int ch=0;ch<DIRECT_CHARS;ch++)
+                    addRule(direct, ch, index);
+                for(Iterator j=other.values().iterator();j.hasNext();)
+                    ((ArrayList)j.next()).add(index);
+                continue;
+            }
+            for(int k=0;k<first.length();k++){
+                char ch=first.charAt(k);
+                if(ch<DIRECT_CHARS){
+                    if(direct[ch]==null || !direct[ch].contains(index))
+                        addRule(direct, ch, index);
+                }else{
+                    ArrayList list=(ArrayList)other.get(Character.valueOf(ch));
+                    if(list==null){
+                        list=new ArrayList(any);
+                        other.put(Character.valueOf(ch), list);
+                    }
+                    if(!list.contains(index))
+                        list.add(index);
+                }
+            }
+        }
+        rulesByChar=new int[DIRECT_CHARS][];
+        for(int ch=0;ch<DIRECT_CHARS;ch++)
+            rulesByChar[ch]=toArray(direct[ch]);
+        rulesByOtherChar=new HashMap();
+        for(Iterator j=other.entrySet().iterator();j.hasNext();){
+            Map.Entry entry=(Map.Entry)j.next();
+            rulesByOtherChar.put(entry.getKey(), toArray((ArrayList)entry.getValue()));
+        }
+        rulesForAnyChar=toArray(any);
+    }
+
+    private static void addRule(ArrayList[] direct, int ch, Integer index){
+        if(direct[ch]==null)
+            direct[ch]=new ArrayList();
+        direct[ch].add(index);
+    }
+
+    private static int[] toArray(ArrayList list){
+        if(list==null)
+            return new int[0];
+        int[] result=new int[list.size()];
+        for(int i=0;i<result.length;i++)
+            result[i]=((Integer)list.get(i)).intValue();
+        return result;
+    }
+
+    // Returns the characters a rule can match first, or null for any.
+    private static String firstChars(char[] match){
+        String firstGroup=null;
+        boolean inMulti=false;
+        StringBuffer group=new StringBuffer();
+        for(int i=0;i<match.length;i++){
+            char ch=match[i];
+            if(ch==STARTMULTI || ch==ENDMULTI){
+                inMulti=!inMulti;
+                if(!inMulti && firstGroup==null)
+                    firstGroup=group.toString();
+            }else if(inMulti){
+                group.append(ch);
+            }else{
+                return String.valueOf(ch);
+            }
+        }
+        if(firstGroup==null && inMulti)
+            firstGroup=group.toString();
+        return firstGroup;
     }
 
     // Used to build up the transformastion table.
@@ -131,7 +277,8 @@ public class GenericTransformator implements Transformator{
     */
     private class TransformationRule{
 
-        private String replace;
+        private String replaceExp;
+        private char[] replace;
         private char[] match;
         // takeOut=number of chars to replace; 
         // matchLength=length of matching string counting multies as one.
@@ -142,7 +289,8 @@ public class GenericTransformator implements Transformator{
         public TransformationRule(String match, String replace, int takeout
                                   , int matchLength, boolean start, boolean end){
             this.match=match.toCharArray();
-            this.replace=replace;
+            this.replaceExp=replace;
+            this.replace=replace.toCharArray();
             this.takeOut=takeout;
             this.matchLength=matchLength;
             this.start=start;
@@ -153,7 +301,7 @@ public class GenericTransformator implements Transformator{
         * Returns true if word from pos and forward matches the match string.
         * Precondition: wordPos+matchLength<word.length()
         */
-        public boolean isMatching(StringBuffer word, int wordPos){
+        public boolean isMatching(char[] word, int wordLength, int wordPos){
             boolean matching=true, inMulti=false, multiMatch=false;
             char matchCh;
             
@@ -166,7 +314,7 @@ public class GenericTransformator implements Transformator{
                     else
                         multiMatch=false;
                 }else{
-                    if(matchCh!=word.charAt(wordPos)){
+                    if(matchCh!=word[wordPos]){
                         if(inMulti)
                             multiMatch=multiMatch | false;
                         else
@@ -183,13 +331,13 @@ public class GenericTransformator implements Transformator{
                         break;
                 }
             }
-            if(end && wordPos!=word.length()-1)
+            if(end && wordPos!=wordLength-1)
                 matching=false;
             return matching;
         }
 
         public String getReplaceExp(){
-            return  replace;
+            return  replaceExp;
         }
 
         public int getTakeOut(){
@@ -207,7 +355,7 @@ public class GenericTransformator implements Transformator{
         // Just for debugging purposes.
         public String toString(){
             return "Match:"+String.valueOf(match)
-                   +" Replace:"+replace
+                   +" Replace:"+replaceExp
                    +" TakeOut:"+takeOut
                    +" MatchLength:"+matchLength
                    +" Start:"+start
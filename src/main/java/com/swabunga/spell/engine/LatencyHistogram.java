@@ -0,0 +1,86 @@
+package com.swabunga.spell.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in power of two buckets of nanoseconds.
+ * <p>
+ * Bucket i holds the durations from 2^i up to 2^(i+1) nanoseconds, so a
+ * percentile is known to within a factor of two, which is enough to tell
+ * microseconds from milliseconds. Recording is lock free.
+ * </p>
+ */
+final class LatencyHistogram {
+
+	private final AtomicLongArray buckets = new AtomicLongArray(64);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private volatile long max = 0;
+
+	void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+		count.increment();
+		total.add(nanos);
+		if (nanos > max) {
+			synchronized (this) {
+				if (nanos > max)
+					max = nanos;
+			}
+		}
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	/** Returns the mean in nanoseconds, 0 if nothing was recorded*/
+	long getMean() {
+		long n = count.sum();
+		return (n == 0) ? 0 : total.sum() / n;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the upper bound in nanoseconds of the bucket holding the
+	 * given percentile (0 to 100), at most the maximum, 0 if nothing was
+	 * recorded.
+	 */
+	long getPercentile(double percentile) {
+		long[] counts = getBuckets();
+		long n = 0;
+		for (int i = 0; i < counts.length; i++)
+			n += counts[i];
+		if (n == 0)
+			return 0;
+		long rank = (long) Math.ceil(n * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0)
+				return (i >= 62) ? max : Math.min((1L << (i + 1)) - 1, max);
+		}
+		return max;
+	}
+
+	/** Returns the counts of the buckets*/
+	long[] getBuckets() {
+		long[] counts = new long[buckets.length()];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = buckets.get(i);
+		return counts;
+	}
+
+	synchronized void reset() {
+		for (int i = 0; i < buckets.length(); i++)
+			buckets.set(i, 0);
+		count.reset();
+		total.reset();
+		max = 0;
+	}
+}
@@ -0,0 +1,355 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A dictionary per language, loaded when it is first needed, with a
+ * personal word list on top of all of them.
+ * <p>
+ * forLanguage returns the view of one language: a word is correct if it is
+ * in the word list of that language or in the personal list, and added
+ * words go to the personal list. The word list of a language is only
+ * loaded when its view is first asked a question, through the
+ * SpellDictionaryRegistry, so editors share it.
+ * </p>
+ * <p>
+ * Languages are mapped to word list resources by
+ * <code>dictionary/languages.properties</code> and setWordList. A tag like
+ * "en-GB" is looked up as "en-gb", then as "en". Text in a language without
+ * a word list, or without a language, is checked against the default word
+ * list. Used as a SpellDictionary itself, this is the view of the default
+ * word list.
+ * </p>
+ * <p>
+ * A word list that can not be loaded is not tried again. Its language is
+ * checked against the default word list instead, and the error is printed
+ * once and thrown by load.
+ * </p>
+ */
+public class LayeredSpellDictionary extends SpellDictionary {
+
+	/** Maps languages to word list resources*/
+	private static final String LANGUAGES = "dictionary/languages.properties";
+
+	private final String defaultWordList;
+	private final Properties wordLists = new Properties();
+	/** The personal word list, on top of every language*/
+	private final SpellDictionary personal;
+	/** Word list resource to Layer*/
+	private final Map layers = new HashMap();
+	/** Language as given to getWordList to word list resource*/
+	private final Map resolved = new HashMap();
+
+	/**
+	 * @param defaultWordList The word list resource for text without a
+	 * language or in a language without a word list
+	 */
+	public LayeredSpellDictionary(String defaultWordList) throws IOException {
+		super(new DoubleMetaEncoder());
+		this.defaultWordList = defaultWordList;
+		personal = new SpellDictionary(new StringReader(""));
+		InputStream in = SpellDictionary.class.getResourceAsStream(LANGUAGES);
+		if (in != null) {
+			try {
+				wordLists.load(in);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * Maps a language to a word list resource, as SpellDictionary(String)
+	 * loads them.
+	 */
+	public synchronized void setWordList(String language, String wordListResource) {
+		wordLists.setProperty(language.toLowerCase(Locale.ENGLISH), wordListResource);
+		resolved.clear();
+	}
+
+	/**
+	 * Returns the word list resource used for a language. Languages whose
+	 * word list is not there get the default one.
+	 */
+	public synchronized String getWordList(String language) {
+		if (language == null)
+			return defaultWordList;
+		String resource = (String) resolved.get(language);
+		if (resource == null) {
+			resource = resolve(language);
+			resolved.put(language, resource);
+		}
+		return resource;
+	}
+
+	private String resolve(String language) {
+		String tag = language.trim().toLowerCase(Locale.ENGLISH).replace('_', '-');
+		String resource = wordLists.getProperty(tag);
+		int dash = tag.indexOf('-');
+		if (resource == null && dash > 0)
+			resource = wordLists.getProperty(tag.substring(0, dash));
+		if (resource != null && SpellDictionary.class.getResource("dictionary/" + resource) != null)
+			return resource;
+		return defaultWordList;
+	}
+
+	/**
+	 * Returns the dictionary for text in the language, null meaning none.
+	 * Its word list is loaded on first use.
+	 */
+	public SpellDictionary forLanguage(String language) {
+		String resource = getWordList(language);
+		synchronized (this) {
+			Layer layer = (Layer) layers.get(resource);
+			if (layer == null) {
+				layer = new Layer(resource);
+				layers.put(resource, layer);
+			}
+			return layer;
+		}
+	}
+
+	/**
+	 * Loads the word list of the language now rather than on first use, so
+	 * it can be done off the thread that will ask. Does nothing if it is
+	 * loaded already.
+	 *
+	 * @throws IllegalStateException if the word list can not be read, now
+	 * or on an earlier try
+	 */
+	public void load(String language) {
+		Layer layer = (Layer) forLanguage(language);
+		layer.base();
+		if (layer.failure != null)
+			throw layer.failure;
+	}
+
+	/**
+	 * Returns the languages whose word lists have been loaded so far, by
+	 * word list resource.
+	 */
+	public synchronized List getLoadedWordLists() {
+		ArrayList loaded = new ArrayList();
+		for (Iterator i = layers.values().iterator(); i.hasNext();) {
+			Layer layer = (Layer) i.next();
+			if (layer.isLoaded())
+				loaded.add(layer.resource);
+		}
+		return loaded;
+	}
+
+	/** Returns the personal word list*/
+	public SpellDictionary getPersonalDictionary() {
+		return personal;
+	}
+
+	private SpellDictionary defaultLayer() {
+		return forLanguage(null);
+	}
+
+	public void addWord(String word) {
+		personal.addWord(word);
+		addToPrefixIndexes(word);
+	}
+
+	/** Loads the user dictionary into the personal word list, see SpellDictionary*/
+	public void setUserDictionary(UserDictionaryStore store) throws IOException {
+		personal.setUserDictionary(store);
+		for (Iterator i = personal.wordIterator(); i.hasNext();)
+			addToPrefixIndexes((String) i.next());
+	}
+
+	/** Adds a personal word to the prefix index of every language that has one*/
+	private synchronized void addToPrefixIndexes(String word) {
+		for (Iterator i = layers.values().iterator(); i.hasNext();) {
+			PrefixIndex index = ((Layer) i.next()).prefixIndex;
+			if (index != null)
+				index.addWord(word);
+		}
+	}
+
+	public UserDictionaryStore getUserDictionary() {
+		return personal.getUserDictionary();
+	}
+
+	public String getCode(String word) {
+		return defaultLayer().getCode(word);
+	}
+
+	public LinkedList getWords(String code) {
+		return defaultLayer().getWords(code);
+	}
+
+	public Iterator wordIterator() {
+		return defaultLayer().wordIterator();
+	}
+
+	public boolean isCorrect(String word) {
+		return defaultLayer().isCorrect(word);
+	}
+
+	public boolean isCorrect(CharSequence word) {
+		return defaultLayer().isCorrect(word);
+	}
+
+	public LinkedList getSuggestions(String word, int threshold) {
+		return defaultLayer().getSuggestions(word, threshold);
+	}
+
+	public LinkedList getSuggestions(String word, int threshold, int count) {
+		return defaultLayer().getSuggestions(word, threshold, count);
+	}
+
+	public PrefixIndex getPrefixIndex() {
+		return defaultLayer().getPrefixIndex();
+	}
+
+	/** Gives the loaded word lists back to the registry and disposes the personal list*/
+	public void dispose() {
+		Layer[] loaded;
+		synchronized (this) {
+			loaded = (Layer[]) layers.values().toArray(new Layer[layers.size()]);
+			layers.clear();
+		}
+		for (int i = 0; i < loaded.length; i++)
+			loaded[i].release();
+		personal.dispose();
+		super.dispose();
+	}
+
+	/** One language under the personal word list*/
+	private final class Layer extends SpellDictionary {
+		final String resource;
+		private volatile SpellDictionary base;
+		/** Why the word list could not be loaded, set instead of base*/
+		volatile IllegalStateException failure;
+		/** Stands in for the default word list if that could not be loaded*/
+		private SpellDictionary none;
+		/** The personal words over the index of the word list, guarded by the outer dictionary*/
+		PrefixIndex prefixIndex;
+
+		Layer(String resource) {
+			super(new DoubleMetaEncoder());
+			this.resource = resource;
+		}
+
+		boolean isLoaded() {
+			return base != null;
+		}
+
+		/**
+		 * Returns the word list of the language, loading it on first use. If
+		 * it can not be loaded, returns the default word list, or an empty one
+		 * if this is the default.
+		 */
+		SpellDictionary base() {
+			SpellDictionary b = base;
+			if (b != null)
+				return b;
+			synchronized (this) {
+				if (base == null && failure == null) {
+					try {
+						base = SpellDictionaryRegistry.acquire(resource);
+					} catch (IOException ex) {
+						failure = new IllegalStateException("Could not load the word list " + resource + ": " + ex.getMessage());
+						System.out.println(failure.getMessage());
+					}
+				}
+				if (base != null)
+					return base;
+				if (resource.equals(defaultWordList)) {
+					if (none == null)
+						none = new SpellDictionary(new DoubleMetaEncoder());
+					return none;
+				}
+			}
+			return ((Layer) defaultLayer()).base();
+		}
+
+		synchronized void release() {
+			if (base != null)
+				SpellDictionaryRegistry.release(base);
+			base = null;
+		}
+
+		public void addWord(String word) {
+			LayeredSpellDictionary.this.addWord(word);
+		}
+
+		/** The index of the word list, shared, with the personal words over it*/
+		public PrefixIndex getPrefixIndex() {
+			PrefixIndex shared = base().getPrefixIndex();
+			synchronized (LayeredSpellDictionary.this) {
+				if (prefixIndex == null) {
+					prefixIndex = new PrefixIndex(shared);
+					for (Iterator i = personal.wordIterator(); i.hasNext();)
+						prefixIndex.addWord((String) i.next());
+				}
+				return prefixIndex;
+			}
+		}
+
+		public String getCode(String word) {
+			return base().getCode(word);
+		}
+
+		public LinkedList getWords(String code) {
+			LinkedList words = base().getWords(code);
+			LinkedList own = personal.getWords(code);
+			if (own.isEmpty())
+				return words;
+			LinkedList all = new LinkedList(words);
+			all.addAll(own);
+			return all;
+		}
+
+		public Iterator wordIterator() {
+			final Iterator[] parts = { base().wordIterator(), personal.wordIterator() };
+			return new Iterator() {
+				private int part = 0;
+
+				public boolean hasNext() {
+					while (part < parts.length - 1 && !parts[part].hasNext())
+						part++;
+					return parts[part].hasNext();
+				}
+
+				public Object next() {
+					if (!hasNext())
+						throw new NoSuchElementException();
+					return parts[part].next();
+				}
+			};
+		}
+
+		public boolean isCorrect(String word) {
+			return personal.isCorrect(word) || base().isCorrect(word);
+		}
+
+		public boolean isCorrect(CharSequence word) {
+			return personal.isCorrect(word) || base().isCorrect(word);
+		}
+
+		public LinkedList getSuggestions(String word, int threshold) {
+			return getSuggestions(word, threshold, Integer.MAX_VALUE);
+		}
+
+		public LinkedList getSuggestions(String word, int threshold, int count) {
+			LinkedList suggestions = base().getSuggestions(word, threshold, count);
+			LinkedList own = personal.getSuggestions(word, threshold, count);
+			if (own.isEmpty())
+				return suggestions;
+			suggestions = new LinkedList(suggestions);
+			suggestions.addAll(own);
+			Collections.sort(suggestions, new Word());
+			while (suggestions.size() > count)
+				suggestions.removeLast();
+			return suggestions;
+		}
+
+		public void dispose() {
+			//The word list belongs to the registry, the personal list to the outer dictionary
+		}
+	}
+}
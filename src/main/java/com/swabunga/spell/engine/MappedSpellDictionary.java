@@ -0,0 +1,216 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * A SpellDictionary that answers straight from a file written by
+ * {@link DictionaryCompiler}.
+ * <p>
+ * The file is mapped read only, so opening it costs next to nothing and the
+ * word data lives off the heap. Words added with addWord are kept in the
+ * inherited main dictionary and are looked up on top of the mapped words.
+ * </p>
+ * <p>
+ * The dictionary must be opened with the same phonetic rules it was
+ * compiled with.
+ * </p>
+ */
+public class MappedSpellDictionary extends SpellDictionary {
+
+	private IntBuffer codeTable;
+	private IntBuffer wordTable;
+	private CharBuffer chars;
+	private int codeCount;
+	private int wordCount;
+
+	/**
+	 * Opens a dictionary compiled with the DoubleMeta codes.
+	 */
+	public MappedSpellDictionary(File compiled) throws IOException {
+		super(new DoubleMetaEncoder());
+		map(compiled, DictionaryCompiler.PHONETIC_DOUBLEMETA);
+	}
+
+	/**
+	 * Opens a dictionary compiled with an aspell phonetic file.
+	 */
+	public MappedSpellDictionary(File compiled, File phonetic) throws IOException {
+		super(new GenericTransformator(phonetic));
+		map(compiled, DictionaryCompiler.PHONETIC_GENERIC);
+	}
+
+	private void map(File compiled, int phonetic) throws IOException {
+		long start = System.nanoTime();
+		RandomAccessFile file = new RandomAccessFile(compiled, "r");
+		ByteBuffer buffer;
+		try {
+			// The mapping stays valid after the channel is closed
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+		} finally {
+			file.close();
+		}
+		if (buffer.capacity() < DictionaryCompiler.HEADER_SIZE
+			|| buffer.getInt(0) != DictionaryCompiler.MAGIC)
+			throw new IOException(compiled + " is not a compiled dictionary");
+		if (buffer.getInt(4) != DictionaryCompiler.VERSION)
+			throw new IOException(compiled + " has unsupported version " + buffer.getInt(4));
+		if (buffer.getInt(8) != phonetic)
+			throw new IOException(compiled + " was compiled with different phonetic rules");
+		codeCount = buffer.getInt(12);
+		wordCount = buffer.getInt(16);
+		int charCount = buffer.getInt(20);
+
+		int pos = DictionaryCompiler.HEADER_SIZE;
+		codeTable = slice(buffer, pos, codeCount * DictionaryCompiler.CODE_ENTRY_SIZE).asIntBuffer();
+		pos += codeCount * DictionaryCompiler.CODE_ENTRY_SIZE;
+		wordTable = slice(buffer, pos, wordCount * DictionaryCompiler.WORD_ENTRY_SIZE).asIntBuffer();
+		pos += wordCount * DictionaryCompiler.WORD_ENTRY_SIZE;
+		chars = slice(buffer, pos, charCount * 2).asCharBuffer();
+		SpellEngineStats.getInstance().recordLoad(System.nanoTime() - start, wordCount, buffer.capacity());
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int pos, int length) throws IOException {
+		if (pos + length > buffer.capacity())
+			throw new IOException("Compiled dictionary is truncated");
+		ByteBuffer dup = buffer.duplicate();
+		dup.position(pos);
+		dup.limit(pos + length);
+		return dup.slice();
+	}
+
+	/**
+	 * Returns the number of words in the mapped file.
+	 */
+	public int getMappedWordCount() {
+		return wordCount;
+	}
+
+	/**
+	 * Returns a list of strings (words) for the code.
+	 */
+	public LinkedList getWords(String code) {
+		LinkedList result = new LinkedList();
+		int entry = findCode(code);
+		if (entry >= 0) {
+			int first = codeTable.get(entry * 4 + 2);
+			int last = first + codeTable.get(entry * 4 + 3);
+			for (int w = first; w < last; w++)
+				result.add(wordAt(w));
+		}
+		addAddedWords(code, result);
+		return result;
+	}
+
+	/**
+	 * Returns an iterator over the mapped words followed by the added ones.
+	 */
+	public Iterator wordIterator() {
+		final Iterator added = super.wordIterator();
+		return new Iterator() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < wordCount || added.hasNext();
+			}
+
+			public Object next() {
+				if (next < wordCount)
+					return wordAt(next++);
+				return added.next();
+			}
+		};
+	}
+
+	/**
+	 * Returns true if the word is correctly spelled against the current word list.
+	 * <p>The mapped words are compared in place, nothing is copied out of the file.</p>
+	 */
+	public boolean isCorrect(String word) {
+		String code = getCode(word);
+		int entry = findCode(code);
+		if (containsWord(entry, word) || isAdded(word))
+			return true;
+		//Also try the lowercase version, as SpellDictionary does.
+		String lower = word.toLowerCase();
+		if (lower.equals(word))
+			return false;
+		return containsWord(entry, lower) || isAdded(lower);
+	}
+
+	/**
+	 * Returns true if the mapped words have the word, exactly as it is.
+	 */
+	protected boolean isListed(String word) {
+		return containsWord(findCode(getCode(word)), word);
+	}
+
+	/**
+	 * Looks the word up as a String, the mapped words are found through
+	 * their code.
+	 */
+	public boolean isCorrect(CharSequence word) {
+		return isCorrect(word.toString());
+	}
+
+	/** Returns the code table entry for the code or -1*/
+	private int findCode(String code) {
+		int low = 0;
+		int high = codeCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compare(codeTable.get(mid * 4), codeTable.get(mid * 4 + 1), code);
+			if (cmp < 0)
+				low = mid + 1;
+			else if (cmp > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	private boolean containsWord(int entry, String word) {
+		if (entry < 0)
+			return false;
+		int first = codeTable.get(entry * 4 + 2);
+		int last = first + codeTable.get(entry * 4 + 3);
+		for (int w = first; w < last; w++) {
+			if (wordTable.get(w * 2 + 1) == word.length()
+				&& compare(wordTable.get(w * 2), word.length(), word) == 0)
+				return true;
+		}
+		return false;
+	}
+
+	/** Compares the pool characters at start with the string, like String.compareTo*/
+	private int compare(int start, int length, String s) {
+		int n = Math.min(length, s.length());
+		for (int i = 0; i < n; i++) {
+			char c1 = chars.get(start + i);
+			char c2 = s.charAt(i);
+			if (c1 != c2)
+				return c1 - c2;
+		}
+		return length - s.length();
+	}
+
+	private String wordAt(int w) {
+		int start = wordTable.get(w * 2);
+		int length = wordTable.get(w * 2 + 1);
+		char[] word = new char[length];
+		for (int i = 0; i < length; i++)
+			word[i] = chars.get(start + i);
+		return new String(word);
+	}
+
+	/** Releases the mapping along with the rest of the dictionary*/
+	public void dispose() {
+		super.dispose();
+		codeTable = null;
+		wordTable = null;
+		chars = null;
+	}
+}
@@ -0,0 +1,307 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The words of a dictionary sorted for completing prefixes as they are
+ * typed.
+ * <p>
+ * The words given at construction are front coded: sorted, in blocks of
+ * BLOCK words of which the first is stored whole and each other one as
+ * the length it shares with the word before and the rest of it. The
+ * blocks are binary searched on their first words and the words of a
+ * prefix are read off in order from there. Words added later go to a
+ * sorted set beside the blocks. An index can also sit over another one,
+ * such as the index of a shared word list, and complete from both.
+ * </p>
+ * <p>
+ * Completions come in alphabetical order, the words given a frequency
+ * first. Only the first few words of a prefix and the ones with a
+ * frequency are read, whatever the number of words with the prefix. A
+ * capitalised prefix is completed from the lower case words too,
+ * capitalised in turn. The index is thread safe.
+ * </p>
+ */
+public class PrefixIndex {
+
+	/** Words per block, the first of each is stored whole*/
+	private static final int BLOCK = 16;
+
+	/** Per word: the length shared with the word before, the length of the rest, the rest*/
+	private final char[] chars;
+	/** Offset in chars of the first word of each block*/
+	private final int[] blockStart;
+	private final int size;
+	/** The index this one sits over, or null*/
+	private final PrefixIndex under;
+
+	/** Words added after construction, guarded by itself*/
+	private final TreeSet added = new TreeSet();
+	/** Word to Integer frequency, for the words given one, sorted*/
+	private final ConcurrentSkipListMap frequencies = new ConcurrentSkipListMap();
+
+	/**
+	 * Builds the index over the words. Duplicates are dropped, words longer
+	 * than Character.MAX_VALUE are left out.
+	 */
+	public PrefixIndex(Iterator words) {
+		this(words, null);
+	}
+
+	/**
+	 * An index with no words of its own yet, over another one. Words added
+	 * to it are not added to the one under it.
+	 */
+	public PrefixIndex(PrefixIndex under) {
+		this(Collections.EMPTY_LIST.iterator(), under);
+	}
+
+	private PrefixIndex(Iterator words, PrefixIndex under) {
+		this.under = under;
+		ArrayList sorted = new ArrayList();
+		while (words.hasNext()) {
+			String word = (String) words.next();
+			if (word.length() <= Character.MAX_VALUE)
+				sorted.add(word);
+		}
+		Collections.sort(sorted);
+		int length = 0;
+		int count = 0;
+		for (int i = 0; i < sorted.size(); i++) {
+			if (i > 0 && sorted.get(i).equals(sorted.get(i - 1)))
+				continue;
+			sorted.set(count++, sorted.get(i));
+			length += 2 + ((String) sorted.get(i)).length();
+		}
+		size = count;
+		chars = new char[length];
+		blockStart = new int[(count + BLOCK - 1) / BLOCK];
+		int pos = 0;
+		String before = "";
+		for (int i = 0; i < count; i++) {
+			String word = (String) sorted.get(i);
+			int shared = 0;
+			if (i % BLOCK == 0)
+				blockStart[i / BLOCK] = pos;
+			else
+				shared = sharedLength(before, word);
+			chars[pos++] = (char) shared;
+			chars[pos++] = (char) (word.length() - shared);
+			word.getChars(shared, word.length(), chars, pos);
+			pos += word.length() - shared;
+			before = word;
+		}
+	}
+
+	private static int sharedLength(String a, String b) {
+		int n = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < n && a.charAt(i) == b.charAt(i))
+			i++;
+		return i;
+	}
+
+	/**
+	 * Adds a word, unless this index or one under it has it.
+	 */
+	public void addWord(String word) {
+		if (contains(word))
+			return;
+		synchronized (added) {
+			added.add(word);
+		}
+	}
+
+	/**
+	 * Returns true if this index or one under it has the word.
+	 */
+	public boolean contains(String word) {
+		ArrayList found = new ArrayList();
+		collectBlocks(word, 1, found);
+		if (!found.isEmpty() && found.get(0).equals(word))
+			return true;
+		synchronized (added) {
+			if (added.contains(word))
+				return true;
+		}
+		return under != null && under.contains(word);
+	}
+
+	/**
+	 * Sets how often a word is used, to rank the completions by. A word
+	 * without one counts as 0. Set on this index, it ranks the words of the
+	 * ones under it too. Words the index does not have are ignored.
+	 *
+	 * @throws IllegalArgumentException if the frequency is negative
+	 */
+	public void setFrequency(String word, int frequency) {
+		if (frequency < 0)
+			throw new IllegalArgumentException("frequency must not be negative: " + frequency);
+		if (frequency == 0)
+			frequencies.remove(word);
+		else if (contains(word))
+			frequencies.put(word, Integer.valueOf(frequency));
+	}
+
+	/**
+	 * Returns the frequency of the word set on this index or, failing that,
+	 * on one under it.
+	 */
+	public int getFrequency(String word) {
+		Integer frequency = (Integer) frequencies.get(word);
+		if (frequency != null)
+			return frequency.intValue();
+		return (under == null) ? 0 : under.getFrequency(word);
+	}
+
+	/**
+	 * Returns up to count words that start with the prefix and are longer
+	 * than it, the most frequent first, and in alphabetical order among
+	 * those as frequent.
+	 */
+	public List getCompletions(String prefix, int count) {
+		final HashMap rank = new HashMap();
+		complete(prefix, count, false, rank);
+		if (prefix.length() > 0 && Character.isUpperCase(prefix.charAt(0)))
+			complete(Character.toLowerCase(prefix.charAt(0)) + prefix.substring(1), count, true, rank);
+		ArrayList completions = new ArrayList(rank.keySet());
+		Collections.sort(completions, new Comparator() {
+			public int compare(Object a, Object b) {
+				int byFrequency = ((Integer) rank.get(b)).compareTo((Integer) rank.get(a));
+				return (byFrequency != 0) ? byFrequency : ((String) a).compareTo((String) b);
+			}
+		});
+		return (completions.size() > count) ? new ArrayList(completions.subList(0, count)) : completions;
+	}
+
+	/**
+	 * Puts the completions of the prefix that can be among the count best
+	 * into rank, with their frequencies. Words without a frequency come
+	 * last, so only the first count + 1 of each sorted source can make it,
+	 * the prefix itself being one of them.
+	 */
+	private void complete(String prefix, int count, boolean capitalise, Map rank) {
+		ArrayList found = new ArrayList();
+		collect(prefix, count + 1, found);
+		collectRanked(prefix, found);
+		for (Iterator i = found.iterator(); i.hasNext();) {
+			String word = (String) i.next();
+			if (word.length() <= prefix.length())
+				continue;
+			String shown = capitalise ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word;
+			if (!rank.containsKey(shown))
+				rank.put(shown, Integer.valueOf(getFrequency(word)));
+		}
+	}
+
+	/** Adds the words starting with the prefix that have a frequency here or under*/
+	private void collectRanked(String prefix, List out) {
+		for (Iterator i = frequencies.tailMap(prefix).keySet().iterator(); i.hasNext();) {
+			String word = (String) i.next();
+			if (!word.startsWith(prefix))
+				break;
+			out.add(word);
+		}
+		if (under != null)
+			under.collectRanked(prefix, out);
+	}
+
+	/** Adds up to limit words of each source starting with the prefix, in order per source*/
+	private void collect(String prefix, int limit, List out) {
+		collectBlocks(prefix, limit, out);
+		synchronized (added) {
+			int n = 0;
+			for (Iterator i = added.tailSet(prefix).iterator(); i.hasNext() && n < limit; n++) {
+				String word = (String) i.next();
+				if (!word.startsWith(prefix))
+					break;
+				out.add(word);
+			}
+		}
+		if (under != null)
+			under.collect(prefix, limit, out);
+	}
+
+	/** Adds up to limit words of the blocks starting with the prefix, in order*/
+	private void collectBlocks(String prefix, int limit, List out) {
+		if (size == 0)
+			return;
+		// The last block whose first word is before the prefix
+		int lo = 0;
+		int hi = blockStart.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (compareFirst(mid, prefix) < 0)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		char[] word = new char[64];
+		int wordLength = 0;
+		int n = 0;
+		for (int w = lo * BLOCK, pos = blockStart[lo]; w < size && n < limit; w++) {
+			int shared = chars[pos++];
+			int rest = chars[pos++];
+			if (shared + rest > word.length)
+				word = Arrays.copyOf(word, Math.max(shared + rest, word.length * 2));
+			System.arraycopy(chars, pos, word, shared, rest);
+			pos += rest;
+			wordLength = shared + rest;
+			int c = compare(word, wordLength, prefix);
+			if (c < 0)
+				continue;
+			if (c > 0)
+				break;
+			out.add(new String(word, 0, wordLength));
+			n++;
+		}
+	}
+
+	/** Compares the first word of the block with the prefix, like String.compareTo*/
+	private int compareFirst(int block, String prefix) {
+		int pos = blockStart[block];
+		int length = chars[pos + 1];
+		pos += 2;
+		int n = Math.min(length, prefix.length());
+		for (int i = 0; i < n; i++) {
+			char c = chars[pos + i];
+			char p = prefix.charAt(i);
+			if (c != p)
+				return c - p;
+		}
+		return length - prefix.length();
+	}
+
+	/**
+	 * Returns 0 if the word starts with the prefix, otherwise which side of
+	 * the words that do it sorts on.
+	 */
+	private static int compare(char[] word, int length, String prefix) {
+		int n = Math.min(length, prefix.length());
+		for (int i = 0; i < n; i++) {
+			char c = word[i];
+			char p = prefix.charAt(i);
+			if (c != p)
+				return c - p;
+		}
+		return (length < prefix.length()) ? -1 : 0;
+	}
+
+	/**
+	 * Returns the number of words of this index, without the ones under it.
+	 */
+	public int size() {
+		synchronized (added) {
+			return size + added.size();
+		}
+	}
+
+	/**
+	 * Returns an estimate of the heap in bytes held by the blocks, without
+	 * the added words and the frequencies.
+	 */
+	public long getMemory() {
+		return 16 + 2L * chars.length + 16 + 4L * blockStart.length;
+	}
+}
@@ -66,7 +66,6 @@ public class PropertyConfiguration extends Configuration {
 			string = "false";
 			
 		prop.setProperty(key, string);
-		save();
 	}
 
 	/**
@@ -74,14 +73,23 @@ public class PropertyConfiguration extends Configuration {
 	 */
 	public void setInteger(String key, int value) {
 		prop.setProperty(key,Integer.toString(value));
-		save();
 	}
 	
+	/**
+	 * Writes the values to filename. The setters only change the values in
+	 * memory, call this to keep them. Does nothing if filename is not set.
+	 */
 	public void save() {
+		if (filename == null)
+			return;
 		try {
 			File file = new File(filename.getFile());
 			FileOutputStream fout = new FileOutputStream(file);
-			prop.store(fout,"HEADER");
+			try {
+				prop.store(fout,"HEADER");
+			} finally {
+				fout.close();
+			}
 		} catch (FileNotFoundException e) {
 		} catch (IOException e) {
 		}
@@ -7,11 +7,16 @@ package com.swabunga.spell.engine;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The SpellDictionary class holds the instance of the dictionary.
  * <p>
  * This class is thread safe. Derived classes should ensure that this preserved.
+ * Lookups do not lock: the words of the word list are packed into a
+ * CompactWordList that never changes, and the word lists of added words in
+ * the main dictionary are never changed once they can be seen by other
+ * threads, addWord replaces the list of a code with an extended copy instead.
  * </p>
  * <p>
  * There are many open source dictionary files. For just a few see:
@@ -22,7 +27,7 @@ import java.util.*;
  * is formatted in this way (most are).
  * </p>
  */
-public class SpellDictionary
+public class SpellDictionary implements SuggestionEngine
 {
 
 	/** The replace list is used in the getSuggestions method*/
@@ -44,31 +49,53 @@ public class SpellDictionary
 			'R',
 			'0' };
 
-	/** A field indicating the initial hash map capacity (16KB) for the main
-	 *  dictionary hash map. Interested to see what the performance of a
-	 *  smaller initial capacity is like.
+	/**
+	 * The words of the word list, bucketed by code, in primitive arrays.
 	 */
-	private final static int INITIAL_CAPACITY = 16 * 1024;
+	private volatile CompactWordList compact = CompactWordList.EMPTY;
+	/** The words of the user dictionary file, packed as the word list is, see setUserDictionary*/
+	private volatile CompactWordList userWords = CompactWordList.EMPTY;
+	/** Collects the words while the word list is read, see putWord*/
+	private CompactWordList.Builder loading = null;
 	/**
-	 * The hashmap that contains the word dictionary. The map is hashed on the doublemeta
-	 * code. The map entry contains a LinkedList of words that have the same double meta code.
+	 * The hashmap that contains the words added after the word list was loaded.
+	 * The map is hashed on the doublemeta code. The map entry contains a
+	 * LinkedList of words that have the same double meta code.
 	 */
-	protected HashMap mainDictionary = new HashMap(INITIAL_CAPACITY);
+	protected Map mainDictionary = new ConcurrentHashMap();
 	/**The reference to a Transformator, used to transform a word into it's.
 	 * phonetic code.
 	 */
 	private Transformator tf = null;
+	/** The cache of recent codes that getCode goes through*/
+	private CachingTransformator codeCache = null;
+	/** Every word of the main dictionary, for isCorrect*/
+	private WordSet words = new WordSet(16);
+	/** Rules out most misspelt words before isCorrect probes the words, or null*/
+	private volatile BloomFilter bloomFilter = null;
+	/** The words by prefix, built on first use, see getPrefixIndex*/
+	private volatile PrefixIndex prefixIndex = null;
+	/** The edit costs suggestions are scored with, null for Configuration.getSnapshot*/
+	private volatile ConfigurationSnapshot config = null;
+
 
+	/** Persists the added words, off the calling thread*/
+	private UserDictionaryStore userDictionary = null;
 
-	/** Holds the dictionary file for appending*/
-	private File dictFile = null;
+	/**
+	 * Constructor for derived classes that hold their words elsewhere.
+	 * The main dictionary starts out empty.
+	 */
+	protected SpellDictionary(Transformator transformator) {
+		setTransformator(transformator);
+	}
 
 	/**
 	 * Dictionary Constructor.
 	 */
 	public SpellDictionary(Reader wordList) throws IOException {
-		tf = new DoubleMeta();
-		createDictionary(new BufferedReader(wordList));
+		setTransformator(new DoubleMetaEncoder());
+		loadWordList(wordList);
 	}
 
 	/**
@@ -77,9 +104,9 @@ public class SpellDictionary
 	 */
 	public SpellDictionary(String wordListResource) throws IOException
 	{
-		tf = new DoubleMeta();
+		setTransformator(new DoubleMetaEncoder());
 		InputStream is = this.getClass().getResourceAsStream("dictionary/" + wordListResource);
-		createDictionary(new BufferedReader(new InputStreamReader(is)));
+		loadWordList(new InputStreamReader(is));
 	}
 
 	/**
@@ -87,8 +114,9 @@ public class SpellDictionary
 	 */
 	public SpellDictionary(File wordList)
 		throws FileNotFoundException, IOException {
-		this(new FileReader(wordList));
-		dictFile = wordList;
+		setTransformator(new DoubleMetaEncoder());
+		loadWordList(wordList);
+		userDictionary = new UserDictionaryStore(wordList, false);
 	}
 
 	/**
@@ -97,27 +125,113 @@ public class SpellDictionary
 	*/
 	public SpellDictionary(File wordList, File phonetic)
 		throws FileNotFoundException, IOException {
-		tf = new GenericTransformator(phonetic);
-		dictFile = wordList;
-		createDictionary(new BufferedReader(new FileReader(wordList)));
+		setTransformator(new GenericTransformator(phonetic));
+		userDictionary = new UserDictionaryStore(wordList, false);
+		loadWordList(wordList);
+	}
+
+	/**
+	 * Add a word permanantly to the dictionary (and the user dictionary).
+	 * <p>Concurrent lookups see the word list of the code either without or
+	 * with the new word. The word is written to disk in the background.</p>
+	 */
+	public synchronized void addWord(String word) {
+		addToMemory(word);
+		if (userDictionary != null)
+			userDictionary.append(word);
+	}
+
+	private void addToMemory(String word) {
+		// Into the filter first, so no lookup is turned away while the word is added
+		BloomFilter filter = bloomFilter;
+		if (filter != null)
+			filter.add(word);
+		String code = getCode(word);
+		LinkedList list = (LinkedList) mainDictionary.get(code);
+		list = (list == null) ? new LinkedList() : new LinkedList(list);
+		list.add(word);
+		mainDictionary.put(code, list);
+		words.add(word);
+		PrefixIndex index = prefixIndex;
+		if (index != null)
+			index.addWord(word);
 	}
 
 	/**
-	 * Add a word permanantly to the dictionary (and the dictionary file).
-	 * <p>This needs to be made thread safe (synchronized)</p>
+	 * Loads the words of a user dictionary and sends the words added from
+	 * now on to it instead of the current one, which is closed.
+	 * <p>The first user dictionary file is read by a WordListLoader and
+	 * packed, as the word list is. Only the words of a journal left behind,
+	 * and the words of later user dictionaries, are added one by one.</p>
 	 */
-	public void addWord(String word) {
-		putWord(word);
-		if (dictFile == null)
+	public synchronized void setUserDictionary(UserDictionaryStore store) throws IOException {
+		if (userDictionary != null && userDictionary != store)
+			userDictionary.close();
+		userDictionary = store;
+		if (store == null)
 			return;
+		List leftovers;
+		if (userWords.size() == 0 && store.getFile().exists()) {
+			loadUserWords(store.getFile());
+			leftovers = store.loadJournal();
+		} else
+			leftovers = store.load();
+		for (Iterator i = leftovers.iterator(); i.hasNext();) {
+			String word = (String) i.next();
+			if (!isAdded(word) && !isListed(word) && !getWords(getCode(word)).contains(word))
+				addToMemory(word);
+		}
+	}
+
+	/** Packs the words of a user dictionary file into userWords*/
+	private void loadUserWords(File file) throws IOException {
+		CompactWordList.Builder builder = new CompactWordList.Builder();
+		Reader in = WordListLoader.open(file);
 		try {
-			FileWriter w = new FileWriter(dictFile.toString(), true);
-			// Open with append.
-			w.write(word);
-			w.write("\n");
-			w.close();
-		} catch (IOException ex) {
-			System.out.println("Error writing to dictionary file");
+			new WordListLoader(tf).load(in, builder);
+		} finally {
+			in.close();
+		}
+		CompactWordList list = builder.build().without(this);
+		// Into the filter and the index before lookups can find the words
+		BloomFilter filter = bloomFilter;
+		PrefixIndex index = prefixIndex;
+		for (int w = 0; w < list.size() && (filter != null || index != null); w++) {
+			String word = list.getWord(w);
+			if (filter != null)
+				filter.add(word);
+			if (index != null)
+				index.addWord(word);
+		}
+		userWords = list;
+	}
+
+	/**
+	 * Returns the store the added words are written to, or null.
+	 */
+	public UserDictionaryStore getUserDictionary() {
+		return userDictionary;
+	}
+
+	/**
+	 * Constructs the dictionary from a word list, as createDictionary does,
+	 * with the words coded on several threads by a WordListLoader.
+	 * The reader is not closed.
+	 */
+	private void loadWordList(Reader in) throws IOException {
+		long start = System.nanoTime();
+		CompactWordList.Builder builder = new CompactWordList.Builder();
+		int count = new WordListLoader(tf).load(in, builder);
+		compact = builder.build();
+		SpellEngineStats.getInstance().recordLoad(System.nanoTime() - start, count, getEstimatedMemory());
+	}
+
+	private void loadWordList(File wordList) throws IOException {
+		Reader in = WordListLoader.open(wordList);
+		try {
+			loadWordList(in);
+		} finally {
+			in.close();
 		}
 	}
 
@@ -126,65 +240,297 @@ public class SpellDictionary
 	 * <p>
 	 * Each word in the reader should be on a seperate line.
 	 * <p>
-	 * This is a very slow function. On my machine it takes quite a while to
-	 * load the data in. I suspect that we could speed this up quite alot.
+	 * The words are packed into a CompactWordList once they are all read.
+	 * <p>
+	 * The words go through putWord one at a time, on the calling thread.
+	 * The constructors load the word list on several threads instead.
 	 */
 	protected void createDictionary(BufferedReader in) throws IOException {
-		String line = "";
-		while (line != null) {
-			line = in.readLine();
-			if (line != null) {
-				line = new String(line.toCharArray());
-				putWord(line);
+		long start = System.nanoTime();
+		int count = 0;
+		loading = new CompactWordList.Builder();
+		try {
+			String line = "";
+			while (line != null) {
+				line = in.readLine();
+				if (line != null) {
+					putWord(line);
+					count++;
+				}
 			}
+			compact = loading.build();
+		} finally {
+			loading = null;
+		}
+		SpellEngineStats.getInstance().recordLoad(System.nanoTime() - start, count, getEstimatedMemory());
+	}
+
+	/**
+	 * Puts a Bloom filter over the words in front of isCorrect, or replaces
+	 * the current one.
+	 * <p>A misspelt word has to be probed for twice, as it is and in lower
+	 * case. The filter turns nearly all of them away after hashing the word
+	 * once. Words the filter lets through are looked up as before, so the
+	 * answers of isCorrect do not change, but correct words pay for the
+	 * filter on top of the lookup. See LookupBenchmark in the benchmarks
+	 * module: it only pays off for texts with many misspelt words, or word
+	 * lists whose tables do not fit the caches. Words with other than ASCII
+	 * characters always go past the filter.</p>
+	 * <p>The filter is sized for the words in the dictionary now. Adding
+	 * many words afterwards raises getExpectedFalsePositiveRate. Derived
+	 * classes that override isCorrect do not use the filter.</p>
+	 *
+	 * @param falsePositiveRate The share of misspelt words the filter should
+	 * let through, e.g. 0.01, between 0 and 1 exclusive
+	 */
+	public synchronized void enableBloomFilter(double falsePositiveRate) {
+		CompactWordList list = compact;
+		CompactWordList user = userWords;
+		int count = list.size() + user.size();
+		for (Iterator i = mainDictionary.values().iterator(); i.hasNext();)
+			count += ((LinkedList) i.next()).size();
+		BloomFilter filter = new BloomFilter(count, falsePositiveRate);
+		for (int w = 0; w < list.size(); w++)
+			filter.add(list.getWord(w));
+		for (int w = 0; w < user.size(); w++)
+			filter.add(user.getWord(w));
+		for (Iterator i = mainDictionary.values().iterator(); i.hasNext();) {
+			for (Iterator j = ((LinkedList) i.next()).iterator(); j.hasNext();)
+				filter.add((String) j.next());
+		}
+		bloomFilter = filter;
+	}
+
+	/** Removes the Bloom filter, see enableBloomFilter*/
+	public synchronized void disableBloomFilter() {
+		bloomFilter = null;
+	}
+
+	/** Returns true if a Bloom filter is in front of isCorrect*/
+	public boolean isBloomFilterEnabled() {
+		return bloomFilter != null;
+	}
+
+	/**
+	 * Returns the false positive rate the Bloom filter was sized for, or 0
+	 * if there is none.
+	 */
+	public double getBloomFilterFalsePositiveRate() {
+		BloomFilter filter = bloomFilter;
+		return (filter == null) ? 0 : filter.getFalsePositiveRate();
+	}
+
+	/**
+	 * Returns the false positive rate of the Bloom filter expected with the
+	 * words it holds now, or 0 if there is none.
+	 */
+	public double getExpectedFalsePositiveRate() {
+		BloomFilter filter = bloomFilter;
+		return (filter == null) ? 0 : filter.getExpectedFalsePositiveRate();
+	}
+
+	/**
+	 * Returns the words by prefix, for completing words as they are typed.
+	 * The index is built on first use and words added afterwards go to it
+	 * too.
+	 */
+	public PrefixIndex getPrefixIndex() {
+		PrefixIndex index = prefixIndex;
+		if (index == null) {
+			synchronized (this) {
+				if (prefixIndex == null)
+					prefixIndex = new PrefixIndex(wordIterator());
+				index = prefixIndex;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Sets the EDIT_DEL1, EDIT_DEL2, EDIT_SWAP and EDIT_SUB costs the
+	 * suggestions are scored with. The threshold is given to getSuggestions
+	 * on each call. Until this is called, a dictionary uses
+	 * Configuration.getSnapshot, read when the first suggestions are scored.
+	 */
+	public void setConfiguration(Configuration config) {
+		this.config = ConfigurationSnapshot.of(config);
+	}
+
+	/**
+	 * Returns the configuration the suggestions are scored with.
+	 */
+	public ConfigurationSnapshot getConfiguration() {
+		ConfigurationSnapshot c = config;
+		return (c != null) ? c : Configuration.getSnapshot();
+	}
+
+	/**
+	 * Returns a rough estimate of the heap in bytes held by the words and
+	 * codes of the main dictionary.
+	 */
+	public long getEstimatedMemory() {
+		// The packed word lists, the filter, then the added words
+		long bytes = compact.getMemory() + userWords.getMemory();
+		BloomFilter filter = bloomFilter;
+		if (filter != null)
+			bytes += filter.getMemory();
+		for (Iterator i = mainDictionary.entrySet().iterator(); i.hasNext();) {
+			Map.Entry entry = (Map.Entry) i.next();
+			// Map node, code String and LinkedList
+			bytes += 32 + stringBytes((String) entry.getKey()) + 32;
+			for (Iterator j = ((LinkedList) entry.getValue()).iterator(); j.hasNext();) {
+				// List node, word String and its WordSet slot
+				bytes += 24 + stringBytes((String) j.next()) + 8;
+			}
+		}
+		return bytes;
+	}
+
+	/** A String and its array, compact strings take a byte per Latin-1 char*/
+	private static long stringBytes(String s) {
+		return 24 + ((16 + s.length() + 7) & ~7);
+	}
+
+	private void setTransformator(Transformator transformator) {
+		if (transformator instanceof CachingTransformator) {
+			codeCache = (CachingTransformator) transformator;
+			tf = codeCache.getTransformator();
+		} else {
+			tf = transformator;
+			codeCache = new CachingTransformator(transformator);
 		}
 	}
 
 	/**
 	 * Returns the code representing the word.
+	 * <p>Recent codes are remembered, see getCodeCache.</p>
 	 */
 	public String getCode(String word) {
-		return tf.transform(word);
+		return codeCache.transform(word);
+	}
+
+	/**
+	 * Returns the cache in front of the phonetic transformation, with its
+	 * hit and miss counts.
+	 */
+	public CachingTransformator getCodeCache() {
+		return codeCache;
 	}
 
 	/**
 	 * Allocates a word in the dictionary
+	 * <p>While the word list is read the word is only collected, it is
+	 * packed with the others at the end. Use addWord afterwards.</p>
+	 * <p>The code cache is bypassed: every word of a word list is seen once.</p>
 	 */
 	protected void putWord(String word) {
-		String code = getCode(word);
-		LinkedList list = (LinkedList) mainDictionary.get(code);
-		if (list != null) {
-			list.add(word);
-		} else {
-			list = new LinkedList();
-			list.add(word);
-			mainDictionary.put(code, list);
-		}
+		if (loading != null)
+			loading.add(word, tf.transform(word));
+		else
+			addToMemory(word);
 	}
 
 	/**
 	 * Returns a list of strings (words) for the code.
+	 * <p>The list may be shared and must not be modified.</p>
 	 */
 	public LinkedList getWords(String code) {
-		//Check the main dictionary.
-		LinkedList mainDictResult = (LinkedList) mainDictionary.get(code);
-		if (mainDictResult == null)
-			return new LinkedList();
-		return mainDictResult;
+		LinkedList result = new LinkedList();
+		compact.addWords(code, result);
+		addAddedWords(code, result);
+		return result;
+	}
+
+	/**
+	 * Appends the words of the code that are not from the word list, those
+	 * of the user dictionary and those added since, to the list.
+	 */
+	protected void addAddedWords(String code, List list) {
+		userWords.addWords(code, list);
+		LinkedList added = (LinkedList) mainDictionary.get(code);
+		if (added != null)
+			list.addAll(added);
+	}
+
+	/**
+	 * Returns true if the word list has the word, exactly as it is. Derived
+	 * classes that hold their words elsewhere override this.
+	 */
+	protected boolean isListed(String word) {
+		return compact.contains(word);
+	}
+
+	/**
+	 * Returns true if the word, exactly as it is, is not from the word list
+	 * but from the user dictionary or added since.
+	 */
+	protected boolean isAdded(CharSequence word) {
+		return userWords.contains(word) || words.contains(word);
+	}
+
+	/**
+	 * Returns an iterator over every word (String) in the dictionary.
+	 */
+	public Iterator wordIterator() {
+		final CompactWordList list = compact;
+		final CompactWordList user = userWords;
+		final Iterator buckets = mainDictionary.values().iterator();
+		return new Iterator() {
+			private int next = 0;
+			private Iterator bucket = Collections.EMPTY_LIST.iterator();
+
+			public boolean hasNext() {
+				if (next < list.size() + user.size())
+					return true;
+				while (!bucket.hasNext() && buckets.hasNext())
+					bucket = ((LinkedList) buckets.next()).iterator();
+				return bucket.hasNext();
+			}
+
+			public Object next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				if (next < list.size())
+					return list.getWord(next++);
+				if (next < list.size() + user.size())
+					return user.getWord(next++ - list.size());
+				return bucket.next();
+			}
+		};
 	}
 
 	/**
 	 * Returns true if the word is correctly spelled against the current word list.
 	 */
 	public boolean isCorrect(String word) {
-		LinkedList possible = getWords(getCode(word));
-		if (possible.contains(word))
+		return contains(word);
+	}
+
+	/**
+	 * Returns true if the word is correctly spelled against the current word list.
+	 * <p>The characters are looked up as they are, no String is made unless
+	 * the lower case has to be worked out by String.toLowerCase. Derived
+	 * classes that override isCorrect(String) should override this too.</p>
+	 */
+	public boolean isCorrect(CharSequence word) {
+		if (word instanceof String)
+			return isCorrect((String) word);
+		return contains(word);
+	}
+
+	private boolean contains(CharSequence word) {
+		BloomFilter filter = bloomFilter;
+		if (filter != null && !filter.mightContain(word))
+			return false;
+		CompactWordList list = compact;
+		CompactWordList user = userWords;
+		WordSet set = words;
+		if (list.contains(word) || user.contains(word) || set.contains(word))
 			return true;
 		//JMH should we always try the lowercase version. If I dont then capitalised
 		//words are always returned as incorrect.
-		else if (possible.contains(word.toLowerCase()))
-			return true;
-		return false;
+		return list.containsLowerCase(word) || (user.size() > 0 && user.containsLowerCase(word))
+			|| (set.size() > 0 && set.containsLowerCase(word));
 	}
 
 	/**
@@ -196,7 +542,39 @@ public class SpellDictionary
 	 * @return LinkedList a List of suggestions
 	 */
 	public LinkedList getSuggestions(String word, int threshold) {
+		return getSuggestions(word, threshold, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the count best suggestions to an incorrect word, ranked as
+	 * getSuggestions(word, threshold) ranks them.
+	 * <p>Only count candidates are held at any time. Once that many are
+	 * found, a candidate has to beat the worst of them, which lets the edit
+	 * distance of the others stop early.</p>
+	 *
+	 * @param word Suggestions for given mispelt word
+	 * @param threshold The lower boundary of similarity to mispelt word
+	 * @param count The maximum number of suggestions
+	 * @return LinkedList a List of suggestions
+	 */
+	public LinkedList getSuggestions(String word, int threshold, int count) {
+		long start = System.nanoTime();
+		int[] scored = new int[1];
+		TopSuggestions top = new TopSuggestions(count);
+		getWordsFromCode(word, threshold, getNearMissCodes(word), top, scored);
+		// The candidates are ranked by score and then by the order they were
+		// found in, as a stable sort of all of them would rank them.
+		LinkedList wordlist = top.toList();
+		SpellEngineStats.getInstance().recordSuggestions(System.nanoTime() - start, scored[0]);
+		return wordlist;
+	}
 
+	/**
+	 * Returns the codes whose words getSuggestions scores: the code of the
+	 * word and the codes of the words one swap, change, insertion or
+	 * deletion away from it.
+	 */
+	protected Set getNearMissCodes(String word) {
 		HashSet nearmisscodes = new HashSet();
 		String code = getCode(word);
 
@@ -257,32 +635,41 @@ public class SpellDictionary
 			charArray2[ii - 1] = b;
 			--ii;
 		}
-
-		LinkedList wordlist = getWordsFromCode(word, nearmisscodes);
-		// We sort a linkedlist at the end instead of maintaining a
-		// continously sorted TreeSet because everytime you add a collection
-		// to a treeset it has to be resorted. It's better to do this operation
-		// once at the end.
-		Collections.sort( wordlist, new Word());
-		return wordlist;
+		return nearmisscodes;
 	}
 
-	private LinkedList getWordsFromCode(String word, Collection codes) {
-		Configuration config = Configuration.getConfiguration();
-		LinkedList result = new LinkedList();
+	private void getWordsFromCode(String word, int threshold, Collection codes, TopSuggestions top, int[] scored) {
+		BatchDistanceScorer scorer = new BatchDistanceScorer(getConfiguration());
+		String[] batch = new String[BatchDistanceScorer.LANES];
+		int[] distances = new int[BatchDistanceScorer.LANES];
+		int size = 0;
 		for (Iterator i = codes.iterator(); i.hasNext();) {
 			String code = (String) i.next();
 			LinkedList simwordlist = getWords(code);
+			scored[0] += simwordlist.size();
 			for (Iterator j = simwordlist.iterator(); j.hasNext();) {
-				String similar = (String) j.next();
-				int distance = EditDistance.getDistance(word, similar);
-				if (distance < config.getInteger(Configuration.SPELL_THRESHOLD)) {
-					Word w = new Word(similar, distance);
-					result.add(w);
+				batch[size++] = (String) j.next();
+				if (size == batch.length) {
+					score(word, batch, size, scorer, distances, top, threshold);
+					size = 0;
 				}
 			}
 		}
-		return result;
+		score(word, batch, size, scorer, distances, top, threshold);
+	}
+
+	/**
+	 * Scores a batch of candidates with the limit of its first one and
+	 * offers them in order. The limit only tightens from one candidate to
+	 * the next, so each gets in as if it had been scored on its own.
+	 */
+	private static void score(String word, String[] batch, int size, BatchDistanceScorer scorer, int[] distances,
+			TopSuggestions top, int threshold) {
+		scorer.getDistances(word, batch, size, top.getLimit(threshold), distances);
+		for (int k = 0; k < size; k++) {
+			if (distances[k] <= top.getLimit(threshold))
+				top.add(batch[k], distances[k]);
+		}
 	}
 
 
@@ -291,9 +678,26 @@ public class SpellDictionary
 	  */
 	public void dispose()
 	{
+		if (userDictionary != null)
+		{
+			try
+			{
+				userDictionary.close();
+			}
+			catch (IOException ex)
+			{
+				System.out.println("Error writing to dictionary file");
+			}
+		}
+		compact          = null;
+		userWords        = null;
+		bloomFilter      = null;
+		prefixIndex      = null;
 		mainDictionary   = null;
 		tf               = null;
-		dictFile         = null;
+		codeCache        = null;
+		words            = null;
+		userDictionary   = null;
 	}
 
 }
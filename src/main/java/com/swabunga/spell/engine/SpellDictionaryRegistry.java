@@ -0,0 +1,116 @@
+package com.swabunga.spell.engine;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Shares one SpellDictionary per word list resource across the process.
+ * <p>
+ * Every editor that asks for the same resource gets the same dictionary,
+ * so the word list is loaded and held in memory once. The first caller
+ * loads it; callers asking for the same resource meanwhile wait for that
+ * load instead of starting their own. Dictionaries are reference counted
+ * and disposed when the last user releases them.
+ * </p>
+ * <p>
+ * A resource ending in ".dic" is a stem list with affix rules beside it,
+ * read by AffixSpellDictionary.
+ * </p>
+ */
+public final class SpellDictionaryRegistry {
+
+	/** Resource name to Entry*/
+	private static final Map entries = new HashMap();
+
+	private SpellDictionaryRegistry() {
+	}
+
+	private static final class Entry {
+		final String resource;
+		volatile SpellDictionary dictionary;
+		int references;
+
+		Entry(String resource) {
+			this.resource = resource;
+		}
+
+		synchronized SpellDictionary load() throws IOException {
+			if (dictionary == null && resource.endsWith(".dic"))
+				dictionary = new AffixSpellDictionary(resource);
+			else if (dictionary == null)
+				dictionary = new SpellDictionary(resource);
+			return dictionary;
+		}
+	}
+
+	/**
+	 * Returns the shared dictionary for a word list resource, loading it if
+	 * needed. Each call must be matched by a call to release.
+	 */
+	public static SpellDictionary acquire(String wordListResource) throws IOException {
+		Entry entry;
+		synchronized (entries) {
+			entry = (Entry) entries.get(wordListResource);
+			if (entry == null) {
+				entry = new Entry(wordListResource);
+				entries.put(wordListResource, entry);
+			}
+			entry.references++;
+		}
+		try {
+			return entry.load();
+		} catch (IOException e) {
+			drop(entry);
+			throw e;
+		} catch (RuntimeException e) {
+			drop(entry);
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives back a dictionary obtained from acquire. It is disposed when no
+	 * one else holds it.
+	 *
+	 * @return false if the dictionary does not come from this registry
+	 */
+	public static boolean release(SpellDictionary dictionary) {
+		Entry found = null;
+		synchronized (entries) {
+			for (Iterator i = entries.values().iterator(); i.hasNext();) {
+				Entry entry = (Entry) i.next();
+				if (entry.dictionary == dictionary) {
+					found = entry;
+					break;
+				}
+			}
+			if (found == null)
+				return false;
+			if (--found.references > 0)
+				return true;
+			entries.remove(found.resource);
+		}
+		dictionary.dispose();
+		return true;
+	}
+
+	/**
+	 * Returns true if the dictionary is shared through this registry.
+	 */
+	public static boolean isShared(SpellDictionary dictionary) {
+		synchronized (entries) {
+			for (Iterator i = entries.values().iterator(); i.hasNext();) {
+				if (((Entry) i.next()).dictionary == dictionary)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static void drop(Entry entry) {
+		synchronized (entries) {
+			if (--entry.references == 0 && entries.get(entry.resource) == entry)
+				entries.remove(entry.resource);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.swabunga.spell.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+
+/**
+ * Counters and timings of the spell engine, for the whole process.
+ * <p>
+ * The single instance is registered with the platform MBeanServer as
+ * <code>com.swabunga.spell:type=SpellEngineStats</code> when it is first
+ * used, so any JMX console can watch it. If registration is not allowed
+ * the statistics are still kept.
+ * </p>
+ * <p>
+ * Recording is cheap and lock free; per word work is added up by the
+ * callers and recorded once per call.
+ * </p>
+ */
+public class SpellEngineStats implements SpellEngineStatsMBean {
+
+	/** The name the statistics are registered under*/
+	public static final String OBJECT_NAME = "com.swabunga.spell:type=SpellEngineStats";
+
+	private static final SpellEngineStats instance = new SpellEngineStats();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+		} catch (SecurityException ex) {
+			// Not allowed here, e.g. in an applet
+		} catch (JMException ex) {
+			// Registered by another class loader
+		}
+	}
+
+	private final LongAdder wordsChecked = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LatencyHistogram checkLatency = new LatencyHistogram();
+	private final LongAdder candidatesScored = new LongAdder();
+	private final LatencyHistogram suggestionLatency = new LatencyHistogram();
+	private final LongAdder editDistanceCalls = new LongAdder();
+	private final LongAdder wordsLoaded = new LongAdder();
+	private final LatencyHistogram loadLatency = new LatencyHistogram();
+	private final LongAdder totalLoadNanos = new LongAdder();
+	private volatile long lastLoadNanos = 0;
+	private volatile long lastLoadBytes = 0;
+
+	private SpellEngineStats() {
+	}
+
+	/** Returns the statistics of this process*/
+	public static SpellEngineStats getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Records a call to checkSpelling.
+	 *
+	 * @param nanos How long it took, including the listeners
+	 * @param words The words looked up
+	 * @param missed The words not in the dictionary
+	 */
+	public void recordCheck(long nanos, int words, int missed) {
+		checkLatency.record(nanos);
+		wordsChecked.add(words);
+		misses.add(missed);
+	}
+
+	/**
+	 * Records a suggestion list.
+	 *
+	 * @param nanos How long it took
+	 * @param candidates The candidate words scored, each with one edit distance
+	 */
+	public void recordSuggestions(long nanos, int candidates) {
+		suggestionLatency.record(nanos);
+		candidatesScored.add(candidates);
+		editDistanceCalls.add(candidates);
+	}
+
+	/** Records edit distances computed outside of suggestions*/
+	public void recordEditDistances(int calls) {
+		editDistanceCalls.add(calls);
+	}
+
+	/**
+	 * Records a dictionary load.
+	 *
+	 * @param nanos How long it took
+	 * @param words The words loaded
+	 * @param bytes The estimated heap used, or the size of a mapped file
+	 */
+	public void recordLoad(long nanos, long words, long bytes) {
+		loadLatency.record(nanos);
+		totalLoadNanos.add(nanos);
+		wordsLoaded.add(words);
+		lastLoadNanos = nanos;
+		lastLoadBytes = bytes;
+	}
+
+	public long getWordsChecked() {
+		return wordsChecked.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getChecks() {
+		return checkLatency.getCount();
+	}
+
+	public long getCheckLatencyMeanMicros() {
+		return checkLatency.getMean() / 1000;
+	}
+
+	public long getCheckLatencyP99Micros() {
+		return micros(checkLatency.getPercentile(99));
+	}
+
+	public long getSuggestionsComputed() {
+		return suggestionLatency.getCount();
+	}
+
+	public long getCandidatesScored() {
+		return candidatesScored.sum();
+	}
+
+	public double getCandidatesPerSuggestion() {
+		long n = suggestionLatency.getCount();
+		return (n == 0) ? 0 : (double) candidatesScored.sum() / n;
+	}
+
+	public long getSuggestionLatencyMeanMicros() {
+		return suggestionLatency.getMean() / 1000;
+	}
+
+	public long getSuggestionLatencyP50Micros() {
+		return micros(suggestionLatency.getPercentile(50));
+	}
+
+	public long getSuggestionLatencyP99Micros() {
+		return micros(suggestionLatency.getPercentile(99));
+	}
+
+	public long getSuggestionLatencyMaxMicros() {
+		return suggestionLatency.getMax() / 1000;
+	}
+
+	public long[] getSuggestionLatencyHistogram() {
+		return suggestionLatency.getBuckets();
+	}
+
+	public long getEditDistanceCalls() {
+		return editDistanceCalls.sum();
+	}
+
+	public long getDictionariesLoaded() {
+		return loadLatency.getCount();
+	}
+
+	public long getWordsLoaded() {
+		return wordsLoaded.sum();
+	}
+
+	public long getLastLoadMillis() {
+		return lastLoadNanos / 1000000;
+	}
+
+	public long getTotalLoadMillis() {
+		return totalLoadNanos.sum() / 1000000;
+	}
+
+	public long getLastLoadBytes() {
+		return lastLoadBytes;
+	}
+
+	public void reset() {
+		wordsChecked.reset();
+		misses.reset();
+		checkLatency.reset();
+		candidatesScored.reset();
+		suggestionLatency.reset();
+		editDistanceCalls.reset();
+		wordsLoaded.reset();
+		loadLatency.reset();
+		totalLoadNanos.reset();
+		lastLoadNanos = 0;
+		lastLoadBytes = 0;
+	}
+
+	private static long micros(long nanos) {
+		return (nanos + 999) / 1000;
+	}
+}
@@ -0,0 +1,59 @@
+package com.swabunga.spell.engine;
+
+/**
+ * The management interface of SpellEngineStats. Times are in microseconds
+ * unless the name says otherwise, percentiles are bucket upper bounds and
+ * so accurate to a factor of two.
+ */
+public interface SpellEngineStatsMBean {
+
+	/** Words looked up by SpellChecker.checkSpelling*/
+	public long getWordsChecked();
+
+	/** Words checkSpelling found not to be in the dictionary*/
+	public long getMisses();
+
+	/** Calls to checkSpelling*/
+	public long getChecks();
+
+	public long getCheckLatencyMeanMicros();
+
+	public long getCheckLatencyP99Micros();
+
+	/** Suggestion lists computed*/
+	public long getSuggestionsComputed();
+
+	/** Candidate words scored with an edit distance for suggestions*/
+	public long getCandidatesScored();
+
+	public double getCandidatesPerSuggestion();
+
+	public long getSuggestionLatencyMeanMicros();
+
+	public long getSuggestionLatencyP50Micros();
+
+	public long getSuggestionLatencyP99Micros();
+
+	public long getSuggestionLatencyMaxMicros();
+
+	/** Counts per power of two bucket of nanoseconds*/
+	public long[] getSuggestionLatencyHistogram();
+
+	/** Edit distances computed, for suggestions and through EditDistance*/
+	public long getEditDistanceCalls();
+
+	/** Dictionaries loaded from word lists or mapped from compiled files*/
+	public long getDictionariesLoaded();
+
+	public long getWordsLoaded();
+
+	public long getLastLoadMillis();
+
+	public long getTotalLoadMillis();
+
+	/** Estimated heap of the last dictionary loaded, or size of the mapped file*/
+	public long getLastLoadBytes();
+
+	/** Sets every counter and histogram back to zero*/
+	public void reset();
+}
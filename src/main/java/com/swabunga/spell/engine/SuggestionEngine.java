@@ -0,0 +1,19 @@
+package com.swabunga.spell.engine;
+
+import java.util.List;
+
+/** An interface for anything that can suggest corrections for a misspelt word.
+ *  <p>SpellDictionary is the default engine; it searches the words with similar
+ *  phonetic codes. Other engines can be set on the SpellChecker.</p>
+ */
+public interface SuggestionEngine {
+
+    /** Returns a list of Word objects sorted by score, all scoring below the threshold*/
+    public List getSuggestions(String word, int threshold);
+    /** Returns the count best of getSuggestions(word, threshold), in the same order*/
+    public List getSuggestions(String word, int threshold, int count);
+
+    /** Tells the engine about a word that has been added to the dictionary*/
+    public void addWord(String word);
+
+}
@@ -0,0 +1,238 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A suggestion engine based on a symmetric delete index (as in SymSpell).
+ * <p>
+ * Every dictionary word is indexed under all the strings that can be made
+ * from it by deleting up to maxEdits characters. A misspelt word is looked
+ * up under its own deletes, so candidates are found with hash lookups
+ * instead of scanning phonetic buckets. Candidates are then scored with
+ * a DistanceScorer and sorted with the Word comparator, exactly like the
+ * SpellDictionary suggestions.
+ * </p>
+ * <p>
+ * maxEdits follows from the configured SPELL_THRESHOLD: a word is only
+ * suggested if its distance is below the threshold, so it can be at most
+ * (threshold - 1) / cheapest edit cost edits away. Keys are lower cased,
+ * which only finds more candidates; the scoring stays case sensitive.
+ * </p>
+ * <p>
+ * The index stores the hash of each delete rather than the delete itself.
+ * A hash collision only adds a candidate that fails the scoring.
+ * </p>
+ */
+public class SymSpellSuggestionEngine implements SuggestionEngine {
+
+	/** Upper bound on the number of deletes, the index grows quickly with it*/
+	private static final int MAX_EDITS_LIMIT = 3;
+
+	private final int maxEdits;
+	private final int minDeleteCost;
+	private final DistanceScorer scorer;
+
+	private final ArrayList words = new ArrayList();
+
+	// Open addressing table from delete hash to the head of a posting chain
+	private int[] keys = new int[1 << 16];
+	private int[] heads = new int[1 << 16];
+	private int keyCount = 0;
+	// Posting chains, linked through postNext. Indexes are 1 based, 0 ends a chain.
+	private int[] postWord = new int[1 << 16];
+	private int[] postNext = new int[1 << 16];
+	private int postCount = 0;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Builds the index over all the words of the dictionary, using the
+	 * current configuration.
+	 */
+	public SymSpellSuggestionEngine(SpellDictionary dictionary) {
+		this(dictionary, Configuration.getSnapshot());
+	}
+
+	/**
+	 * Builds the index over all the words of the dictionary.
+	 */
+	public SymSpellSuggestionEngine(SpellDictionary dictionary, Configuration config) {
+		int minCost = Math.min(Math.min(config.getInteger(Configuration.EDIT_DEL1), config.getInteger(Configuration.EDIT_DEL2)),
+			Math.min(config.getInteger(Configuration.EDIT_SUB), config.getInteger(Configuration.EDIT_SWAP)));
+		int threshold = config.getInteger(Configuration.SPELL_THRESHOLD);
+		maxEdits = minCost > 0 ? Math.min((threshold - 1) / minCost, MAX_EDITS_LIMIT) : MAX_EDITS_LIMIT;
+		minDeleteCost = Math.min(config.getInteger(Configuration.EDIT_DEL1), config.getInteger(Configuration.EDIT_DEL2));
+		scorer = new DistanceScorer(config);
+		for (Iterator i = dictionary.wordIterator(); i.hasNext();)
+			index((String) i.next());
+	}
+
+	/**
+	 * Returns the number of edits the index covers.
+	 */
+	public int getMaxEdits() {
+		return maxEdits;
+	}
+
+	/**
+	 * Adds a word to the index.
+	 */
+	public void addWord(String word) {
+		lock.writeLock().lock();
+		try {
+			index(word);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns a linked list of Word objects that are the suggestions to an
+	 * incorrect word. Words more than getMaxEdits() edits away are not found,
+	 * whatever the threshold.
+	 */
+	public List getSuggestions(String word, int threshold) {
+		return getSuggestions(word, threshold, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the count best suggestions, ranked as getSuggestions(word,
+	 * threshold) ranks them.
+	 */
+	public List getSuggestions(String word, int threshold, int count) {
+		long start = System.nanoTime();
+		int scored = 0;
+		TopSuggestions top = new TopSuggestions(count);
+		lock.readLock().lock();
+		try {
+			final BitSet seen = new BitSet(words.size());
+			final ArrayList candidates = new ArrayList();
+			forEachDelete(word.toLowerCase(), new DeleteVisitor() {
+				public void visit(char[] delete, int length) {
+					int slot = find(hash(delete, length));
+					if (slot < 0)
+						return;
+					for (int p = heads[slot]; p != 0; p = postNext[p - 1]) {
+						int w = postWord[p - 1];
+						if (!seen.get(w)) {
+							seen.set(w);
+							candidates.add(words.get(w));
+						}
+					}
+				}
+			});
+			for (Iterator i = candidates.iterator(); i.hasNext();) {
+				String similar = (String) i.next();
+				int limit = top.getLimit(threshold);
+				// Each character of length difference costs at least one delete
+				if ((long) Math.abs(similar.length() - word.length()) * minDeleteCost > limit)
+					continue;
+				scored++;
+				int distance = scorer.getDistance(word, similar, limit);
+				if (distance <= limit)
+					top.add(similar, distance);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		SpellEngineStats.getInstance().recordSuggestions(System.nanoTime() - start, scored);
+		return top.toList();
+	}
+
+	private void index(String word) {
+		final int w = words.size();
+		words.add(word);
+		forEachDelete(word.toLowerCase(), new DeleteVisitor() {
+			public void visit(char[] delete, int length) {
+				post(hash(delete, length), w);
+			}
+		});
+	}
+
+	/** Adds the word to the chain of the hash, once*/
+	private void post(int hash, int word) {
+		int slot = find(hash);
+		if (slot < 0) {
+			if ((keyCount + 1) * 2 > keys.length)
+				rehash();
+			slot = ~find(hash);
+			keys[slot] = hash;
+			keyCount++;
+		} else if (postWord[heads[slot] - 1] == word) {
+			// Deletes repeat when a word has repeated characters
+			return;
+		}
+		if (postCount == postWord.length) {
+			postWord = Arrays.copyOf(postWord, postCount * 2);
+			postNext = Arrays.copyOf(postNext, postCount * 2);
+		}
+		postWord[postCount] = word;
+		postNext[postCount] = heads[slot];
+		heads[slot] = ++postCount;
+	}
+
+	/** Returns the slot of the hash, or the complement of the free slot for it*/
+	private int find(int hash) {
+		int mask = keys.length - 1;
+		for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+			if (heads[slot] == 0)
+				return ~slot;
+			if (keys[slot] == hash)
+				return slot;
+		}
+	}
+
+	private void rehash() {
+		int[] oldKeys = keys;
+		int[] oldHeads = heads;
+		keys = new int[oldKeys.length * 2];
+		heads = new int[oldHeads.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldHeads[i] != 0) {
+				int slot = ~find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				heads[slot] = oldHeads[i];
+			}
+		}
+	}
+
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static int hash(char[] chars, int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++)
+			h = 31 * h + chars[i];
+		return h;
+	}
+
+	/** Receives the deletes of a word*/
+	private interface DeleteVisitor {
+		public void visit(char[] delete, int length);
+	}
+
+	/** Visits the word itself and every string made by deleting up to maxEdits characters*/
+	private void forEachDelete(String word, DeleteVisitor visitor) {
+		char[][] levels = new char[maxEdits + 1][word.length()];
+		word.getChars(0, word.length(), levels[0], 0);
+		visitor.visit(levels[0], word.length());
+		deletes(levels, 0, word.length(), 0, visitor);
+	}
+
+	private void deletes(char[][] levels, int level, int length, int start, DeleteVisitor visitor) {
+		if (level == maxEdits || length == 0)
+			return;
+		char[] from = levels[level];
+		char[] to = levels[level + 1];
+		for (int i = start; i < length; i++) {
+			System.arraycopy(from, 0, to, 0, i);
+			System.arraycopy(from, i + 1, to, i, length - i - 1);
+			visitor.visit(to, length - 1);
+			deletes(levels, level + 1, length - 1, i, visitor);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+
+/**
+ * Keeps the best count suggestions seen so far in a bounded max-heap.
+ * <p>
+ * Suggestions are ranked by score and then by the order they were offered
+ * in, which is the order a stable sort of all of them by score gives. Once
+ * the heap is full a candidate has to score below the worst one held to
+ * get in, so getLimit tightens and the edit distances of the remaining
+ * candidates can stop early.
+ * </p>
+ */
+final class TopSuggestions {
+
+	private final int count;
+	private String[] words = new String[16];
+	private int[] scores = new int[16];
+	private int[] order = new int[16];
+	private int size = 0;
+	private int offered = 0;
+
+	/**
+	 * @param count The number of suggestions kept, Integer.MAX_VALUE for all
+	 */
+	TopSuggestions(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("count must be positive");
+		this.count = count;
+	}
+
+	/**
+	 * Returns the largest score a candidate may have to get in, given that
+	 * suggestions must score below the threshold.
+	 */
+	int getLimit(int threshold) {
+		if (size < count)
+			return threshold - 1;
+		// A later candidate with the same score ranks after the worst one
+		return Math.min(threshold - 1, scores[0] - 1);
+	}
+
+	/** Offers a candidate that scored at most getLimit*/
+	void add(String word, int score) {
+		int sequence = offered++;
+		if (size < count) {
+			if (size == words.length) {
+				int capacity = (int) Math.min((long) size * 2, count);
+				words = Arrays.copyOf(words, capacity);
+				scores = Arrays.copyOf(scores, capacity);
+				order = Arrays.copyOf(order, capacity);
+			}
+			set(size, word, score, sequence);
+			siftUp(size++);
+		} else if (score < scores[0]) {
+			set(0, word, score, sequence);
+			siftDown(0);
+		}
+	}
+
+	/** Returns the suggestions as Word objects, best first*/
+	LinkedList toList() {
+		Integer[] index = new Integer[size];
+		for (int i = 0; i < size; i++)
+			index[i] = Integer.valueOf(i);
+		Arrays.sort(index, new Comparator() {
+			public int compare(Object a, Object b) {
+				int i = ((Integer) a).intValue();
+				int j = ((Integer) b).intValue();
+				return worse(i, j) ? 1 : (worse(j, i) ? -1 : 0);
+			}
+		});
+		LinkedList result = new LinkedList();
+		for (int i = 0; i < size; i++)
+			result.add(new Word(words[index[i].intValue()], scores[index[i].intValue()]));
+		return result;
+	}
+
+	/** True if the entry at i ranks after the entry at j*/
+	private boolean worse(int i, int j) {
+		return scores[i] > scores[j] || (scores[i] == scores[j] && order[i] > order[j]);
+	}
+
+	private void set(int i, String word, int score, int sequence) {
+		words[i] = word;
+		scores[i] = score;
+		order[i] = sequence;
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!worse(i, parent))
+				return;
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				return;
+			if (child + 1 < size && worse(child + 1, child))
+				child++;
+			if (!worse(child, i))
+				return;
+			swap(i, child);
+			i = child;
+		}
+	}
+
+	private void swap(int i, int j) {
+		String w = words[i];
+		words[i] = words[j];
+		words[j] = w;
+		int s = scores[i];
+		scores[i] = scores[j];
+		scores[j] = s;
+		int o = order[i];
+		order[i] = order[j];
+		order[j] = o;
+	}
+}
@@ -0,0 +1,234 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A suggestion engine that walks the dictionary words as a trie.
+ * <p>
+ * Words sharing a prefix share the edit distance rows of that prefix: the
+ * walk computes one row per trie node, from the rows of its parent and
+ * grandparent, so a prefix common to a thousand words is scored once. A
+ * subtree is left out as soon as the rows of a node and its parent are
+ * both over the limit, since every later row is built from one of the two
+ * plus a non negative cost.
+ * </p>
+ * <p>
+ * The distance is that of DistanceScorer, with the EDIT_DEL1, EDIT_DEL2,
+ * EDIT_SWAP and EDIT_SUB costs of the configuration, and the suggestions
+ * are every word of the dictionary scoring below the threshold. Unlike
+ * SpellDictionary, which only scores words with a phonetic code close to
+ * that of the misspelt word, nothing within the threshold is missed.
+ * Words scoring the same come in alphabetical order.
+ * </p>
+ */
+public class TrieSuggestionEngine implements SuggestionEngine {
+
+	private final int del1;
+	private final int del2;
+	private final int swap;
+	private final int sub;
+
+	// Node 0 is the root. Children are linked through nextSibling in
+	// ascending order of label, 0 ends a list.
+	private char[] label = new char[1 << 16];
+	private int[] firstChild = new int[1 << 16];
+	private int[] nextSibling = new int[1 << 16];
+	/** The word ending at the node, or null*/
+	private String[] word = new String[1 << 16];
+	private int nodeCount = 1;
+	private int wordCount = 0;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Builds the trie over all the words of the dictionary, using the
+	 * current configuration.
+	 */
+	public TrieSuggestionEngine(SpellDictionary dictionary) {
+		this(dictionary, Configuration.getSnapshot());
+	}
+
+	/**
+	 * Builds the trie over all the words of the dictionary.
+	 */
+	public TrieSuggestionEngine(SpellDictionary dictionary, Configuration config) {
+		del1 = config.getInteger(Configuration.EDIT_DEL1);
+		del2 = config.getInteger(Configuration.EDIT_DEL2);
+		swap = config.getInteger(Configuration.EDIT_SWAP);
+		sub = config.getInteger(Configuration.EDIT_SUB);
+		for (Iterator i = dictionary.wordIterator(); i.hasNext();)
+			insert((String) i.next());
+	}
+
+	/**
+	 * Returns the number of words in the trie.
+	 */
+	public int getWordCount() {
+		return wordCount;
+	}
+
+	/**
+	 * Returns the number of trie nodes, the root included.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Adds a word to the trie.
+	 */
+	public void addWord(String word) {
+		lock.writeLock().lock();
+		try {
+			insert(word);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns a linked list of Word objects that are the suggestions to an
+	 * incorrect word.
+	 */
+	public List getSuggestions(String word, int threshold) {
+		return getSuggestions(word, threshold, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the count best suggestions, ranked as getSuggestions(word,
+	 * threshold) ranks them. Once count are found the limit tightens, which
+	 * leaves out more of the trie.
+	 */
+	public List getSuggestions(String word, int threshold, int count) {
+		long start = System.nanoTime();
+		Search search = new Search(word, new TopSuggestions(count), threshold);
+		lock.readLock().lock();
+		try {
+			search.children(0, 0, 0);
+		} finally {
+			lock.readLock().unlock();
+		}
+		SpellEngineStats.getInstance().recordSuggestions(System.nanoTime() - start, search.visited);
+		return search.top.toList();
+	}
+
+	private void insert(String w) {
+		int node = 0;
+		for (int i = 0; i < w.length(); i++)
+			node = child(node, w.charAt(i));
+		if (word[node] == null) {
+			word[node] = w;
+			wordCount++;
+		}
+	}
+
+	/** Returns the child of the node with the label, adding it if there is none*/
+	private int child(int node, char c) {
+		int before = 0;
+		int next = firstChild[node];
+		while (next != 0 && label[next] < c) {
+			before = next;
+			next = nextSibling[next];
+		}
+		if (next != 0 && label[next] == c)
+			return next;
+		if (nodeCount == label.length) {
+			label = Arrays.copyOf(label, nodeCount * 2);
+			firstChild = Arrays.copyOf(firstChild, nodeCount * 2);
+			nextSibling = Arrays.copyOf(nextSibling, nodeCount * 2);
+			word = (String[]) Arrays.copyOf(word, nodeCount * 2);
+		}
+		int added = nodeCount++;
+		label[added] = c;
+		nextSibling[added] = next;
+		if (before == 0)
+			firstChild[node] = added;
+		else
+			nextSibling[before] = added;
+		return added;
+	}
+
+	/**
+	 * One walk of the trie for a misspelt word. Row d holds the distances
+	 * between the prefixes of the misspelt word and the prefix of length d
+	 * of the current path, as DistanceScorer computes them with the two
+	 * words the other way round.
+	 */
+	private final class Search {
+		final String misspelt;
+		final TopSuggestions top;
+		final int threshold;
+		final int columns;
+		int[][] rows;
+		char[] path;
+		int visited = 0;
+
+		Search(String misspelt, TopSuggestions top, int threshold) {
+			this.misspelt = misspelt;
+			this.top = top;
+			this.threshold = threshold;
+			columns = misspelt.length() + 1;
+			rows = new int[misspelt.length() + 8][columns];
+			path = new char[rows.length];
+			for (int i = 0; i < columns; i++)
+				rows[0][i] = i * del2;
+		}
+
+		/**
+		 * Scores the children of a node at depth d, whose row and whose
+		 * parent's row have the minimums given.
+		 */
+		void children(int node, int d, int parentMin) {
+			int rowMin = rows[d][0];
+			for (int i = 1; i < columns; i++)
+				rowMin = Math.min(rowMin, rows[d][i]);
+			if (d + 1 == rows.length) {
+				rows = (int[][]) Arrays.copyOf(rows, rows.length * 2);
+				for (int r = d + 1; r < rows.length; r++)
+					rows[r] = new int[columns];
+				path = Arrays.copyOf(path, rows.length);
+			}
+			for (int child = firstChild[node]; child != 0; child = nextSibling[child]) {
+				int limit = top.getLimit(threshold);
+				if (rowMin > limit && (d == 0 || parentMin > limit))
+					return;
+				visited++;
+				path[d] = label[child];
+				row(d + 1);
+				int distance = rows[d + 1][columns - 1];
+				if (word[child] != null && distance <= limit)
+					top.add(word[child], distance);
+				children(child, d + 1, rowMin);
+			}
+		}
+
+		/** Computes row d, the path being one character longer than for row d - 1*/
+		private void row(int d) {
+			int[] cur = rows[d];
+			int[] prev = rows[d - 1];
+			int[] back = (d > 1) ? rows[d - 2] : null;
+			char sc = path[d - 1];
+			cur[0] = prev[0] + del1;
+			for (int i = 1; i < columns; i++) {
+				char wc = misspelt.charAt(i - 1);
+				int cell;
+				if (wc == sc) {
+					cell = prev[i - 1];
+				} else {
+					cell = sub + prev[i - 1];
+					if (i != 1 && d != 1 && wc == path[d - 2] && misspelt.charAt(i - 2) == sc) {
+						int te = swap + back[i - 2];
+						if (te < cell) cell = te;
+					}
+					int te = del1 + cur[i - 1];
+					if (te < cell) cell = te;
+					te = del2 + prev[i];
+					if (te < cell) cell = te;
+				}
+				cur[i] = cell;
+			}
+		}
+	}
+}
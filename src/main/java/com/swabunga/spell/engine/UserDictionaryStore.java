@@ -0,0 +1,302 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Persists the words added to a dictionary without making the caller wait
+ * for the disk.
+ * <p>
+ * append only queues the word. A background writer takes all the words
+ * queued meanwhile, writes them in one go and syncs the file once for the
+ * whole batch, so a burst of additions costs one sync.
+ * </p>
+ * <p>
+ * The words go to a journal next to the user dictionary file
+ * (<code>file.journal</code>). close merges the file and the journal into
+ * a sorted file without duplicates, which replaces the old one atomically,
+ * and removes the journal. A journal left behind by a crash is picked up
+ * by the next load and merged on the next close.
+ * </p>
+ * <p>
+ * A batch that can not be written is lost. The first such error is thrown
+ * by every later flush and by close, which then leaves the file and the
+ * journal as they are.
+ * </p>
+ * <p>
+ * The append only mode writes straight to the end of the file instead and
+ * never rewrites it. SpellDictionary uses it for word lists given as a File,
+ * whose order it keeps.
+ * </p>
+ */
+public class UserDictionaryStore {
+
+	/** Suffix of the journal file*/
+	public static final String JOURNAL_SUFFIX = ".journal";
+
+	/** Queued to stop the writer, not a String so no word can be taken for it*/
+	private static final Object STOP = new Object();
+
+	private final File file;
+	private final File journal;
+	private final boolean compacting;
+
+	private final BlockingQueue queue = new LinkedBlockingQueue();
+	private Thread writer = null;
+	private boolean closed = false;
+	/** Words appended, written and lost to write errors, guarded by this*/
+	private long appended = 0;
+	private long written = 0;
+	private long lost = 0;
+	/** The first write error, guarded by this*/
+	private IOException failure = null;
+
+	/**
+	 * Store for a user dictionary file, with a journal that is merged into
+	 * the file on close.
+	 */
+	public UserDictionaryStore(File file) {
+		this(file, true);
+	}
+
+	/**
+	 * @param file The word list, one word per line
+	 * @param compacting true to journal and merge on close, false to append
+	 * to the file and keep it as it is
+	 */
+	public UserDictionaryStore(File file, boolean compacting) {
+		this.file = file;
+		this.compacting = compacting;
+		journal = compacting ? new File(file.getPath() + JOURNAL_SUFFIX) : null;
+	}
+
+	/** Returns the user dictionary file*/
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Reads the words of the file and of a journal left behind.
+	 * <p>A file written by close is read as it is, without duplicate checks;
+	 * only the words of a journal are checked against it.</p>
+	 */
+	public List load() throws IOException {
+		ArrayList words = new ArrayList();
+		if (file.exists())
+			readLines(file, words);
+		if (journal != null && journal.exists()) {
+			HashSet known = new HashSet(words);
+			ArrayList journalled = new ArrayList();
+			readLines(journal, journalled);
+			for (Iterator i = journalled.iterator(); i.hasNext();) {
+				Object word = i.next();
+				if (known.add(word))
+					words.add(word);
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Reads the words of a journal left behind, or none if there is no
+	 * journal. Unlike load, the words of the file are neither read nor
+	 * checked against.
+	 */
+	public List loadJournal() throws IOException {
+		ArrayList words = new ArrayList();
+		if (journal != null && journal.exists())
+			readLines(journal, words);
+		return words;
+	}
+
+	private static void readLines(File from, List words) throws IOException {
+		BufferedReader in = new BufferedReader(new FileReader(from));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() > 0)
+					words.add(line);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Queues a word to be written. Returns at once.
+	 */
+	public synchronized void append(String word) {
+		if (closed)
+			throw new IllegalStateException("The user dictionary is closed");
+		if (writer != null && !writer.isAlive())
+			throw new IllegalStateException("The user dictionary writer has stopped");
+		if (writer == null) {
+			writer = new Thread(new Runnable() {
+				public void run() {
+					write();
+				}
+			}, "User dictionary writer");
+			writer.setDaemon(true);
+			writer.start();
+		}
+		appended++;
+		queue.add(word);
+	}
+
+	/**
+	 * Waits until every word appended so far is on disk.
+	 *
+	 * @throws IOException the first error writing a batch, whose words are
+	 * not on disk, or if the writer stopped before writing every word
+	 */
+	public synchronized void flush() throws InterruptedException, IOException {
+		while (written + lost < appended && writer != null && writer.isAlive())
+			wait();
+		if (failure != null)
+			throw failure;
+		if (written + lost < appended)
+			throw new IOException("The user dictionary writer stopped, " + (appended - written - lost) + " words were not written");
+	}
+
+	/** The writer loop: one write and one sync per batch of queued words*/
+	private void write() {
+		File target = compacting ? journal : file;
+		FileOutputStream out = null;
+		Writer w = null;
+		ArrayList batch = new ArrayList();
+		try {
+			while (true) {
+				batch.clear();
+				batch.add(queue.take());
+				queue.drainTo(batch);
+				boolean stop = removeStop(batch);
+				if (!batch.isEmpty()) {
+					IOException error = null;
+					try {
+						if (w == null) {
+							out = new FileOutputStream(target, true);
+							w = new BufferedWriter(new OutputStreamWriter(out));
+						}
+						for (Iterator i = batch.iterator(); i.hasNext();) {
+							w.write((String) i.next());
+							w.write("\n");
+						}
+						w.flush();
+						out.getFD().sync();
+					} catch (IOException ex) {
+						error = ex;
+						// Open the file again for the next batch
+						closeQuietly(w, out);
+						w = null;
+						out = null;
+					}
+					synchronized (this) {
+						if (error == null) {
+							written += batch.size();
+						} else {
+							lost += batch.size();
+							if (failure == null)
+								failure = error;
+						}
+						notifyAll();
+					}
+				}
+				if (stop)
+					break;
+			}
+		} catch (InterruptedException ex) {
+			// Stop writing, the queued words are lost
+		} finally {
+			closeQuietly(w, out);
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/** Removes the stop marker from the batch, returns true if it was there*/
+	private static boolean removeStop(List batch) {
+		for (Iterator i = batch.iterator(); i.hasNext();) {
+			if (i.next() == STOP) {
+				i.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Closes the writer, or the stream if there is no writer yet. Every batch was synced already*/
+	private static void closeQuietly(Writer w, OutputStream out) {
+		try {
+			if (w != null)
+				w.close();
+			else if (out != null)
+				out.close();
+		} catch (IOException ex) {
+			// Nothing was left unwritten
+		}
+	}
+
+	/**
+	 * Writes the queued words, stops the writer and, in compacting mode,
+	 * merges the journal into the file.
+	 *
+	 * @throws IOException the first error writing a batch, or if the writer
+	 * stopped before writing every word, in which case the journal is not
+	 * merged
+	 */
+	public void close() throws IOException {
+		Thread stopping;
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			stopping = writer;
+			if (stopping != null)
+				queue.add(STOP);
+		}
+		if (stopping != null) {
+			try {
+				stopping.join();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing the user dictionary");
+			}
+		}
+		synchronized (this) {
+			if (failure != null)
+				throw failure;
+			if (written + lost < appended)
+				throw new IOException("The user dictionary writer stopped, " + (appended - written - lost) + " words were not written");
+		}
+		if (compacting && journal.exists())
+			compact();
+	}
+
+	/** Replaces the file with the sorted, distinct words of file and journal*/
+	private void compact() throws IOException {
+		TreeSet words = new TreeSet(load());
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try {
+			Writer w = new BufferedWriter(new OutputStreamWriter(out));
+			for (Iterator i = words.iterator(); i.hasNext();) {
+				w.write((String) i.next());
+				w.write("\n");
+			}
+			w.flush();
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		journal.delete();
+	}
+}
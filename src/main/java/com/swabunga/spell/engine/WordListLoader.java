@@ -0,0 +1,206 @@
+package com.swabunga.spell.engine;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reads a word list, one word per line, and codes its words on the common
+ * fork-join pool.
+ * <p>
+ * The text is read in chunks of whole lines. A task splits each chunk and
+ * codes its words while the next chunk is read. The finished chunks are
+ * added to the CompactWordList.Builder in the order of the list, so the
+ * dictionary comes out the same as when the words are added one by one.
+ * Lines end as they do for BufferedReader.readLine.
+ * </p>
+ * <p>
+ * The Transformator is called from several threads at once, it must be
+ * thread safe. On a single CPU the chunks are coded on the calling thread.
+ * </p>
+ */
+final class WordListLoader {
+
+	/** The chars of a chunk, some ten thousand words of the english list*/
+	static final int CHUNK = 128 * 1024;
+
+	private final Transformator tf;
+	private final boolean parallel;
+
+	WordListLoader(Transformator tf) {
+		this(tf, Runtime.getRuntime().availableProcessors() > 1);
+	}
+
+	/**
+	 * @param parallel Whether the chunks are coded on the common pool rather
+	 * than on the calling thread
+	 */
+	WordListLoader(Transformator tf, boolean parallel) {
+		this.tf = tf;
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Opens a word list file through its channel, decoding it with the
+	 * default charset as FileReader does.
+	 */
+	static Reader open(File wordList) throws FileNotFoundException {
+		FileChannel channel = new FileInputStream(wordList).getChannel();
+		CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		return Channels.newReader(channel, decoder, CHUNK);
+	}
+
+	/**
+	 * Reads the words into the builder and returns how many there were.
+	 * The reader is not closed.
+	 */
+	int load(Reader in, CompactWordList.Builder builder) throws IOException {
+		// Enough chunks in flight to keep the pool busy while the oldest is added
+		int inFlight = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+		ArrayDeque pending = new ArrayDeque();
+		int count = 0;
+		char[] buffer = new char[CHUNK];
+		int length = 0;
+		boolean end = false;
+		while (!end) {
+			int n = in.read(buffer, length, buffer.length - length);
+			if (n < 0)
+				end = true;
+			else
+				length += n;
+			if (!end && length < buffer.length)
+				continue;
+			int cut = end ? length : lastLineEnd(buffer, length);
+			if (cut == 0) {
+				// A line longer than the chunk, or nothing left
+				if (!end)
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				continue;
+			}
+			char[] next = new char[Math.max(CHUNK, length - cut)];
+			System.arraycopy(buffer, cut, next, 0, length - cut);
+			Chunk chunk = new Chunk(buffer, cut);
+			buffer = next;
+			length -= cut;
+			if (parallel)
+				chunk.fork();
+			else
+				chunk.invoke();
+			pending.addLast(chunk);
+			while (pending.size() > inFlight)
+				count += ((Chunk) pending.removeFirst()).addTo(builder);
+		}
+		// The last read may find nothing left, the chunks in flight are added here
+		while (!pending.isEmpty())
+			count += ((Chunk) pending.removeFirst()).addTo(builder);
+		return count;
+	}
+
+	/**
+	 * Returns the index after the last line end of the text, 0 if there is
+	 * none. A '\r' at the very end does not count, a '\n' may follow it.
+	 */
+	private static int lastLineEnd(char[] text, int length) {
+		for (int i = length - 1; i >= 0; i--) {
+			char ch = text[i];
+			if (ch == '\n' || (ch == '\r' && i < length - 1))
+				return i + 1;
+		}
+		return 0;
+	}
+
+	/** Whole lines of the word list, split and coded by a task*/
+	private final class Chunk extends RecursiveAction {
+		private char[] text;
+		private final int length;
+		private String[] words;
+		private String[] codes;
+		private int size = 0;
+
+		Chunk(char[] text, int length) {
+			this.text = text;
+			this.length = length;
+		}
+
+		protected void compute() {
+			words = new String[Math.max(16, length / 8)];
+			int start = 0;
+			for (int i = 0; i < length; i++) {
+				char ch = text[i];
+				if (ch == '\n' || ch == '\r') {
+					add(new String(text, start, i - start));
+					if (ch == '\r' && i + 1 < length && text[i + 1] == '\n')
+						i++;
+					start = i + 1;
+				}
+			}
+			if (start < length)
+				add(new String(text, start, length - start));
+			text = null;
+			codes = new String[size];
+			for (int i = 0; i < size; i++)
+				codes[i] = tf.transform(words[i]);
+		}
+
+		private void add(String word) {
+			if (size == words.length)
+				words = Arrays.copyOf(words, size * 2);
+			words[size++] = word;
+		}
+
+		/** Waits for the chunk and adds its words, returns how many*/
+		int addTo(CompactWordList.Builder builder) {
+			join();
+			for (int i = 0; i < size; i++)
+				builder.add(words[i], codes[i]);
+			return size;
+		}
+	}
+
+	/**
+	 * Checks that word lists ending at and around chunk boundaries load
+	 * every line, on the calling thread and on the pool, as readLine reads
+	 * them. Prints the sizes checked and exits with 1 on a mismatch.
+	 */
+	public static void main(String[] args) throws IOException {
+		int[] sizes = { CHUNK - 1, CHUNK, CHUNK + 1, 2 * CHUNK - 1, 2 * CHUNK, 2 * CHUNK + 1, 5 * CHUNK };
+		String[] endings = { "\n", "\r\n" };
+		boolean ok = true;
+		for (int s = 0; s < sizes.length; s++) {
+			for (int e = 0; e < endings.length; e++) {
+				String text = wordList(sizes[s], endings[e]);
+				int expected = 0;
+				BufferedReader lines = new BufferedReader(new StringReader(text));
+				while (lines.readLine() != null)
+					expected++;
+				for (int p = 0; p < 2; p++) {
+					CompactWordList.Builder builder = new CompactWordList.Builder();
+					int count = new WordListLoader(new DoubleMetaEncoder(), p == 1).load(new StringReader(text), builder);
+					int built = builder.build().size();
+					boolean right = count == expected && built == expected;
+					ok &= right;
+					System.out.println(sizes[s] + " chars, " + (e == 0 ? "\\n" : "\\r\\n") + (p == 1 ? ", parallel: " : ": ")
+						+ count + " of " + expected + " words" + (right ? "" : " MISMATCH"));
+				}
+			}
+		}
+		System.exit(ok ? 0 : 1);
+	}
+
+	/** Returns a word list of exactly length chars, ending in a line end*/
+	private static String wordList(int length, String lineEnd) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; text.length() < length; i++) {
+			text.append('w').append(i).append(lineEnd);
+		}
+		text.setLength(length - lineEnd.length());
+		// Cut back to whole characters of a word, then pad the last word
+		while (text.length() > 0 && (text.charAt(text.length() - 1) == '\n' || text.charAt(text.length() - 1) == '\r'))
+			text.setCharAt(text.length() - 1, 'x');
+		return text.append(lineEnd).toString();
+	}
+}
@@ -0,0 +1,163 @@
+package com.swabunga.spell.engine;
+
+import java.util.*;
+
+/**
+ * A set of words that can be asked about any CharSequence without turning
+ * it into a String first.
+ * <p>
+ * Words are hashed with the String.hashCode formula and kept in an open
+ * addressing table, compared char by char. Lookups do not lock: a word is
+ * written into a free slot with a single store, and a grown table is only
+ * published once it is complete. Adds must be serialised by the caller.
+ * </p>
+ */
+final class WordSet {
+
+	private volatile String[] table;
+	private int size = 0;
+
+	WordSet(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+		table = new String[capacity];
+	}
+
+	/** Returns the number of words in the set*/
+	int size() {
+		return size;
+	}
+
+	/** Adds the word, unless it is in the set already*/
+	void add(String word) {
+		String[] t = table;
+		int slot = find(t, word, word.hashCode());
+		if (slot >= 0)
+			return;
+		if ((size + 1) * 2 > t.length) {
+			t = grow(t);
+			slot = find(t, word, word.hashCode());
+		}
+		t[~slot] = word;
+		size++;
+	}
+
+	private String[] grow(String[] old) {
+		String[] t = new String[old.length * 2];
+		for (int i = 0; i < old.length; i++) {
+			if (old[i] != null)
+				t[~find(t, old[i], old[i].hashCode())] = old[i];
+		}
+		table = t;
+		return t;
+	}
+
+	/** Returns true if the set holds exactly these characters*/
+	boolean contains(CharSequence word) {
+		String[] t = table;
+		return find(t, word, hash(word)) >= 0;
+	}
+
+	/**
+	 * Returns true if the set holds the word in lower case, like
+	 * contains(word.toString().toLowerCase()) but without the copies when
+	 * the word can be lower cased char by char.
+	 */
+	boolean containsLowerCase(CharSequence word) {
+		if (!isAsciiLowerCaseSafe(word))
+			return contains(word.toString().toLowerCase());
+		int length = word.length();
+		int h = 0;
+		boolean changed = false;
+		for (int i = 0; i < length; i++) {
+			char ch = word.charAt(i);
+			if (ch >= 'A' && ch <= 'Z') {
+				ch += 'a' - 'A';
+				changed = true;
+			}
+			h = 31 * h + ch;
+		}
+		if (!changed)
+			return contains(word);
+		String[] t = table;
+		int mask = t.length - 1;
+		for (int slot = mix(h) & mask;; slot = (slot + 1) & mask) {
+			String candidate = t[slot];
+			if (candidate == null)
+				return false;
+			if (candidate.hashCode() == h && equalsLowerCase(candidate, word))
+				return true;
+		}
+	}
+
+	/** Lower casing ASCII char by char gives String.toLowerCase, except in these languages*/
+	static boolean isAsciiLowerCaseSafe(CharSequence word) {
+		if (!isAsciiLowerCaseLocale())
+			return false;
+		for (int i = word.length() - 1; i >= 0; i--) {
+			if (word.charAt(i) >= 0x80)
+				return false;
+		}
+		return true;
+	}
+
+	/** True unless the default locale lowers some ASCII letters unlike String.toLowerCase does in English*/
+	static boolean isAsciiLowerCaseLocale() {
+		String language = Locale.getDefault().getLanguage();
+		return !(language.equals("tr") || language.equals("az") || language.equals("lt"));
+	}
+
+	private static boolean equalsLowerCase(String candidate, CharSequence word) {
+		int length = word.length();
+		if (candidate.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			char ch = word.charAt(i);
+			if (ch >= 'A' && ch <= 'Z')
+				ch += 'a' - 'A';
+			if (candidate.charAt(i) != ch)
+				return false;
+		}
+		return true;
+	}
+
+	/** Returns the slot of the word, or the complement of the free slot for it*/
+	private static int find(String[] t, CharSequence word, int hash) {
+		int mask = t.length - 1;
+		for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+			String candidate = t[slot];
+			if (candidate == null)
+				return ~slot;
+			if (candidate.hashCode() == hash && equals(candidate, word))
+				return slot;
+		}
+	}
+
+	private static boolean equals(String candidate, CharSequence word) {
+		int length = word.length();
+		if (candidate.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (candidate.charAt(i) != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/** The String.hashCode of the characters*/
+	static int hash(CharSequence word) {
+		if (word instanceof String)
+			return word.hashCode();
+		int h = 0;
+		for (int i = 0, length = word.length(); i < length; i++)
+			h = 31 * h + word.charAt(i);
+		return h;
+	}
+
+	/** Spreads a String hash over the slots of a power of two table*/
+	static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,315 @@
+package com.swabunga.spell.event;
+
+import com.swabunga.spell.engine.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.*;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.HTMLEditorKit;
+
+/**
+ * Spell checks many texts without any user interaction.
+ * <p>
+ * Where the SpellChecker fires an event for every misspelt word and waits
+ * for the user, this class only collects the misspellings, with their
+ * position and best suggestions, into a SpellCheckReport per text. The texts
+ * are checked in parallel on a fork-join pool against one shared dictionary.
+ * </p>
+ * <p>
+ * Files ending in .html or .htm are parsed as HTML and tokenized with a
+ * DocumentWordTokenizer, so only their text is checked and the offsets are
+ * document positions. Other files and strings are tokenized with a
+ * StringWordTokenizer. Files are read in UTF-8 unless set otherwise, HTML
+ * files in the charset their meta tag names if there is one. The ignore
+ * settings of the Configuration apply as in the SpellChecker; sentence
+ * capitalization is not reported.
+ * </p>
+ */
+public class BatchSpellChecker
+{
+  /** The number of suggestions kept per misspelling unless set otherwise*/
+  public static final int DEFAULT_SUGGESTION_COUNT = 5;
+
+  private final SpellDictionary dictionary;
+  private SuggestionEngine suggestionEngine;
+  private int suggestionCount = DEFAULT_SUGGESTION_COUNT;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+  private Charset charset = StandardCharsets.UTF_8;
+
+  private final int threshold;
+  private final boolean ignoreMixedCase;
+  private final boolean ignoreUpperCase;
+  private final boolean ignoreDigitWords;
+  private final boolean ignoreInternetAddresses;
+
+
+  /**
+   * Constructs the BatchSpellChecker with the current configuration.
+   *
+   * @param  dictionary  The dictionary shared by all the checks
+   */
+  public BatchSpellChecker(SpellDictionary dictionary) {
+    this(dictionary, Configuration.getSnapshot());
+  }
+
+
+  /**
+   * Constructs the BatchSpellChecker. The settings are read once, here.
+   *
+   * @param  dictionary  The dictionary shared by all the checks
+   * @param  config      The threshold and ignore settings
+   */
+  public BatchSpellChecker(SpellDictionary dictionary, Configuration config) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("dictionary must non-null");
+    }
+    this.dictionary = dictionary;
+    this.suggestionEngine = dictionary;
+    threshold = config.getInteger(Configuration.SPELL_THRESHOLD);
+    ignoreMixedCase = config.getBoolean(Configuration.SPELL_IGNOREMIXEDCASE);
+    ignoreUpperCase = config.getBoolean(Configuration.SPELL_IGNOREUPPERCASE);
+    ignoreDigitWords = config.getBoolean(Configuration.SPELL_IGNOREDIGITWORDS);
+    ignoreInternetAddresses = config.getBoolean(Configuration.SPELL_IGNOREINTERNETADDRESSES);
+  }
+
+
+  /**
+   * Sets the engine that suggests corrections. Passing null restores the
+   *  phonetic suggestions of the dictionary.
+   *
+   * @param  engine  The new suggestion engine
+   */
+  public void setSuggestionEngine(SuggestionEngine engine) {
+    suggestionEngine = (engine == null) ? dictionary : engine;
+  }
+
+
+  /**
+   * Sets how many suggestions are kept per misspelling; 0 skips computing them.
+   *
+   * @param  count  The number of suggestions
+   */
+  public void setSuggestionCount(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must not be negative");
+    }
+    suggestionCount = count;
+  }
+
+
+  /**
+   * Sets the pool the texts are checked on, the common pool by default.
+   *
+   * @param  pool  The fork-join pool
+   */
+  public void setPool(ForkJoinPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("pool must non-null");
+    }
+    this.pool = pool;
+  }
+
+
+  /**
+   * Sets the charset files are read in, UTF-8 by default. An HTML file that
+   *  names its charset in a meta tag is read in that one.
+   *
+   * @param  charset  The charset of the files
+   */
+  public void setCharset(Charset charset) {
+    if (charset == null) {
+      throw new IllegalArgumentException("charset must non-null");
+    }
+    this.charset = charset;
+  }
+
+
+  /**
+   * Checks the strings in parallel. The reports are named after the index
+   *  of their string.
+   *
+   * @param  texts  The Strings to check
+   * @return        A SpellCheckReport per string, in the same order
+   */
+  public List checkStrings(List texts) {
+    return checkAll(new ArrayList(texts));
+  }
+
+
+  /**
+   * Checks the files in parallel. A file that can not be read gets a report
+   *  holding the error.
+   *
+   * @param  files  The Files to check
+   * @return        A SpellCheckReport per file, in the same order
+   */
+  public List checkFiles(List files) {
+    return checkAll(new ArrayList(files));
+  }
+
+
+  /**
+   * Checks a single text on the calling thread.
+   *
+   * @param  name       The name of the report
+   * @param  tokenizer  The words to check
+   * @return            The report
+   */
+  public SpellCheckReport check(String name, WordTokenizer tokenizer) {
+    long start = System.nanoTime();
+    int misses = 0;
+    List misspellings = new ArrayList();
+    //Suggestions of a word that is misspelt more than once are computed once
+    Map suggestionsByWord = new HashMap();
+    int words = 0;
+    //Only misspelt words are copied out of the text, if possible
+    CharSequenceWordTokenizer views = (tokenizer instanceof CharSequenceWordTokenizer) ?
+        (CharSequenceWordTokenizer) tokenizer : null;
+    while (tokenizer.hasMoreWords()) {
+      CharSequence token = (views != null) ? views.nextWordView() : tokenizer.nextWord();
+      words++;
+      SpellDictionary wordList = SpellChecker.dictionaryFor(dictionary, tokenizer);
+      if (wordList.isCorrect(token))
+        continue;
+      misses++;
+      String word = token.toString();
+      if (isIgnored(word, tokenizer.isNewSentance()))
+        continue;
+      //The same word may be misspelt in several languages
+      List key = Arrays.asList(new Object[] { wordList, word });
+      List suggestions = (List) suggestionsByWord.get(key);
+      if (suggestions == null) {
+        suggestions = suggest(word, wordList);
+        suggestionsByWord.put(key, suggestions);
+      }
+      misspellings.add(new Misspelling(word, tokenizer.getCurrentWordPosition(), suggestions));
+    }
+    SpellEngineStats.getInstance().recordCheck(System.nanoTime() - start, words, misses);
+    return new SpellCheckReport(name, misspellings, words);
+  }
+
+
+  private boolean isIgnored(String word, boolean startsSentance) {
+    return (ignoreMixedCase && SpellChecker.isMixedCaseWord(word, startsSentance)) ||
+        (ignoreUpperCase && SpellChecker.isUpperCaseWord(word)) ||
+        (ignoreDigitWords && SpellChecker.isDigitWord(word)) ||
+        (ignoreInternetAddresses && SpellChecker.isINETWord(word));
+  }
+
+
+  private List suggest(String word, SpellDictionary wordList) {
+    if (suggestionCount == 0)
+      return Collections.EMPTY_LIST;
+    List result = new ArrayList(suggestionCount);
+    SuggestionEngine engine = (suggestionEngine == dictionary) ? wordList : suggestionEngine;
+    List words = engine.getSuggestions(word, threshold, suggestionCount);
+    for (Iterator i = words.iterator(); i.hasNext();) {
+      result.add(((Word) i.next()).getWord());
+    }
+    return result;
+  }
+
+
+  private SpellCheckReport checkItem(Object item, int index) {
+    if (item instanceof File) {
+      File file = (File) item;
+      try {
+        return check(file.getPath(), tokenize(file));
+      } catch (Exception e) {
+        return new SpellCheckReport(file.getPath(), e);
+      }
+    }
+    return check(Integer.toString(index), new StringWordTokenizer((String) item));
+  }
+
+
+  /** The charset of a meta tag, as in charset="utf-8" or content="text/html; charset=utf-8"*/
+  private static final Pattern META_CHARSET =
+      Pattern.compile("<meta\\s[^>]*charset\\s*=\\s*[\"']?\\s*([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+  /** How far into an HTML file its meta charset is looked for*/
+  private static final int META_SCAN = 1024;
+
+
+  private WordTokenizer tokenize(File file) throws Exception {
+    String name = file.getName().toLowerCase();
+    boolean html = name.endsWith(".html") || name.endsWith(".htm");
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Charset decoding = html ? metaCharset(bytes, charset) : charset;
+    Reader in = new InputStreamReader(new ByteArrayInputStream(bytes), decoding);
+    try {
+      if (html) {
+        //The charset is already resolved, the parser must not switch it
+        HTMLEditorKit kit = new HTMLEditorKit();
+        HTMLDocument document = (HTMLDocument) kit.createDefaultDocument();
+        document.putProperty("IgnoreCharsetDirective", Boolean.TRUE);
+        kit.read(in, document, 0);
+        return new DocumentWordTokenizer(document);
+      }
+      StringWriter text = new StringWriter();
+      char[] buffer = new char[8192];
+      for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+        text.write(buffer, 0, n);
+      }
+      return new StringWordTokenizer(text.toString());
+    } finally {
+      in.close();
+    }
+  }
+
+
+  /**
+   * Returns the charset named by a meta tag near the start of the HTML, or
+   *  the fallback if there is none or it is not supported.
+   */
+  static Charset metaCharset(byte[] html, Charset fallback) {
+    //Tags are ASCII in every charset a meta tag can name, bar UTF-16
+    String head = new String(html, 0, Math.min(html.length, META_SCAN), StandardCharsets.ISO_8859_1);
+    Matcher m = META_CHARSET.matcher(head);
+    if (!m.find())
+      return fallback;
+    try {
+      return Charset.forName(m.group(1));
+    } catch (IllegalCharsetNameException e) {
+      return fallback;
+    } catch (UnsupportedCharsetException e) {
+      return fallback;
+    }
+  }
+
+
+  private List checkAll(List items) {
+    SpellCheckReport[] reports = new SpellCheckReport[items.size()];
+    if (!items.isEmpty())
+      pool.invoke(new CheckTask(items, reports, 0, items.size()));
+    return Arrays.asList(reports);
+  }
+
+
+  /** Checks a range of the items, splitting it in halves until one is left*/
+  private class CheckTask extends RecursiveAction {
+    private final List items;
+    private final SpellCheckReport[] reports;
+    private final int from;
+    private final int to;
+
+    CheckTask(List items, SpellCheckReport[] reports, int from, int to) {
+      this.items = items;
+      this.reports = reports;
+      this.from = from;
+      this.to = to;
+    }
+
+    protected void compute() {
+      if (to - from == 1) {
+        reports[from] = checkItem(items.get(from), from);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new CheckTask(items, reports, from, middle), new CheckTask(items, reports, middle, to));
+    }
+  }
+
+}
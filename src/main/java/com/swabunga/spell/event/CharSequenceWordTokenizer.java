@@ -0,0 +1,18 @@
+package com.swabunga.spell.event;
+
+/** A WordTokenizer that can hand out the current word without copying it.
+ *  <p>
+ *  Most words of a text are spelt correctly and only need to be looked up.
+ *  nextWordView returns a view of the word in the text being tokenized,
+ *  which the tokenizer reuses for every word; getCurrentWordPosition and
+ *  getCurrentWordEnd give its offsets. Call toString on the view to keep
+ *  the word.
+ *  </p>
+ */
+public interface CharSequenceWordTokenizer extends WordTokenizer {
+  /** Moves to the next word like nextWord, but returns a view of it.
+   *  <p>The view is only valid until the next call to nextWord,
+   *  nextWordView or replaceWord.</p>
+   */
+  public CharSequence nextWordView();
+}
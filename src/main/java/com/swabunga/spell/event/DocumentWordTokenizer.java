@@ -7,23 +7,35 @@ import javax.swing.text.Document;
 import javax.swing.text.Element;
 import javax.swing.text.Segment;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.html.HTML;
 
 /** This class tokenizes a swing document model. It also allows for the
  *  document model to be changed when corrections occur.
+ *  <p>
+ *  The text is copied once, when the tokenizer is created, and words are
+ *  read from that copy. Replacements only ever happen at the current word,
+ *  so every word still to come lies behind all of them and is shifted by
+ *  their total change in length. The tokenizer keeps that delta instead of
+ *  copying the document again, which keeps a replace all pass linear.
+ *  </p>
  *
  * @author Jason Height (jheight@chariot.net.au)
  */
-public class DocumentWordTokenizer implements WordTokenizer {
-  /** Holds the start character position of the current word*/
+public class DocumentWordTokenizer implements CharSequenceWordTokenizer, LanguageWordTokenizer {
+  /** Holds the start character position of the current word, in the copy*/
   private int currentWordPos = 0;
-  /** Holds the end character position of the current word*/
+  /** Holds the end character position of the current word, in the copy*/
   private int currentWordEnd = 0;
-  /** Holds the start character position of the next word*/
+  /** Holds the start character position of the next word, in the copy*/
   private int nextWordPos = -1;
   /** The actual text that is being tokenized*/
   private Document document;
-  /** The character iterator over the document*/
+  /** The character iterator over the copy of the document text*/
   private Segment text;
+  /** The view handed out by nextWordView*/
+  private WordView view;
+  /** Document position minus copy position of the words still to come*/
+  private int delta = 0;
   /** The cumulative word count that have been processed*/
   private int wordCount = 0;
   /** Flag indicating if there are any more tokens (words) left*/
@@ -36,14 +48,22 @@ public class DocumentWordTokenizer implements WordTokenizer {
   private BreakIterator sentanceIterator;
   private boolean startsSentance = true;
 
+  /** The character element the language was last looked up for, and its language*/
+  private Element languageElement = null;
+  private String language = null;
+
 
   public DocumentWordTokenizer(Document document) {
     this.document = document;
-    //Create a text segment over the etire document
-    text = new Segment();
     sentanceIterator = BreakIterator.getSentenceInstance();
     try {
-      document.getText(0, document.getLength(), text);
+      //Copy the text: the segment of getText may share the document's array
+      Segment content = new Segment();
+      document.getText(0, document.getLength(), content);
+      char[] copy = new char[content.count];
+      System.arraycopy(content.array, content.offset, copy, 0, content.count);
+      text = new Segment(copy, 0, copy.length);
+      view = new WordView(text);
       sentanceIterator.setText(text);
       currentWordPos = getNextWordStart(text, 0);
       //If the current word pos is -1 then the string was all white space
@@ -54,6 +74,8 @@ public class DocumentWordTokenizer implements WordTokenizer {
         moreTokens = false;
       }
     } catch (BadLocationException ex) {
+      text = new Segment(new char[0], 0, 0);
+      view = new WordView(text);
       moreTokens = false;
     }
   }
@@ -91,18 +113,18 @@ public class DocumentWordTokenizer implements WordTokenizer {
     return moreTokens;
   }
 
-  /** Returns the current character position in the text
+  /** Returns the current character position in the document
    *
    */
   public int getCurrentWordPosition() {
-    return currentWordPos;
+    return currentWordPos + delta;
   }
 
-  /** Returns the current end word position in the text
+  /** Returns the current end word position in the document
    *
    */
   public int getCurrentWordEnd() {
-    return currentWordEnd;
+    return currentWordEnd + delta;
   }
 
 
@@ -110,6 +132,19 @@ public class DocumentWordTokenizer implements WordTokenizer {
    *
    */
   public String nextWord() {
+    advance();
+    return new String(text.array, currentWordPos, currentWordEnd-currentWordPos);
+  }
+
+  /** Returns a view of the next word in the text, see CharSequenceWordTokenizer
+   *
+   */
+  public CharSequence nextWordView() {
+    advance();
+    return view.set(currentWordPos, currentWordEnd);
+  }
+
+  private void advance() {
     if (!first) {
       currentWordPos = nextWordPos;
       currentWordEnd = getNextWordEnd(text, currentWordPos);
@@ -125,17 +160,10 @@ public class DocumentWordTokenizer implements WordTokenizer {
 
     }
     //The nextWordPos has already been populated
-    String word = null;
-    try {
-      word = document.getText(currentWordPos, currentWordEnd-currentWordPos);
-    } catch (BadLocationException ex) {
-      moreTokens = false;
-    }
     wordCount++;
     first = false;
     if (nextWordPos == -1)
       moreTokens = false;
-    return word;
   }
 
   /** Returns the current number of words that have been processed
@@ -148,31 +176,39 @@ public class DocumentWordTokenizer implements WordTokenizer {
   /** Replaces the current word token*/
   public void replaceWord(String newWord) {
     if (currentWordPos != -1) {
+      int start = currentWordPos + delta;
       try {
       /* ORIGINAL
         document.remove(currentWordPos, currentWordEnd - currentWordPos);
         document.insertString(currentWordPos, newWord, null);
       */
       // Howard's Version for Ekit
-		Element	element = ((javax.swing.text.html.HTMLDocument)document).getCharacterElement(currentWordPos);
-		AttributeSet attribs = element.getAttributes();
-        document.remove(currentWordPos, currentWordEnd - currentWordPos);
-        document.insertString(currentWordPos, newWord, attribs);
+        AttributeSet attribs = null;
+        if (document instanceof javax.swing.text.html.HTMLDocument) {
+          Element	element = ((javax.swing.text.html.HTMLDocument)document).getCharacterElement(start);
+          attribs = element.getAttributes();
+        }
+        document.remove(start, currentWordEnd - currentWordPos);
+        document.insertString(start, newWord, attribs);
       // End Howard's Version
-        //Need to reset the segment
-        document.getText(0, document.getLength(), text);
       } catch (BadLocationException ex) {
         throw new RuntimeException(ex.getMessage());
       }
-      //Position after the newly replaced word(s)
+      //The elements may have been split or merged
+      languageElement = null;
+      //The words after the replaced one moved by the change in length
+      delta += newWord.length() - (currentWordEnd - currentWordPos);
       //Position after the newly replaced word(s)
       first = true;
-      currentWordPos = getNextWordStart(text, currentWordPos+newWord.length());
+      currentWordPos = getNextWordStart(text, currentWordEnd);
       if (currentWordPos != -1) {
         currentWordEnd = getNextWordEnd(text, currentWordPos);
         nextWordPos = getNextWordStart(text, currentWordEnd);
-        sentanceIterator.setText(text);
-        sentanceIterator.following(currentWordPos);
+        //The sentences of the copy are unchanged, so step forward to the
+        //boundary after the word. following() would rescan from the start.
+        int boundary = sentanceIterator.current();
+        while (boundary != BreakIterator.DONE && boundary <= currentWordPos)
+          boundary = sentanceIterator.next();
       } else moreTokens = false;
     }
   }
@@ -181,7 +217,11 @@ public class DocumentWordTokenizer implements WordTokenizer {
    *  that have been made)
    */
   public String getContext() {
-    return text.toString();
+    try {
+      return document.getText(0, document.getLength());
+    } catch (BadLocationException ex) {
+      return text.toString();
+    }
   }
 
   /** Returns true iif the current word is at the start of a sentance*/
@@ -189,4 +229,50 @@ public class DocumentWordTokenizer implements WordTokenizer {
     return startsSentance;
   }
 
-}
\ No newline at end of file
+  /** Returns the language of the current word, from the lang attribute of
+   *  the nearest enclosing HTML element that has one, or null.
+   */
+  public String getCurrentWordLanguage() {
+    if (!(document instanceof javax.swing.text.html.HTMLDocument))
+      return null;
+    int position = currentWordPos + delta;
+    //The words of a run of text share its character element
+    if (languageElement != null && languageElement.getDocument() == document &&
+        position >= languageElement.getStartOffset() && position < languageElement.getEndOffset())
+      return language;
+    languageElement = ((javax.swing.text.html.HTMLDocument)document).getCharacterElement(position);
+    language = getLanguage(languageElement);
+    return language;
+  }
+
+  /** Returns the language of the text of a character element, from the
+   *  lang attribute of the nearest enclosing HTML element that has one, or
+   *  null. Call under the read lock of the document.
+   */
+  public static String getLanguage(Element element) {
+    String lang = null;
+    for (Element e = element; e != null && lang == null; e = e.getParentElement())
+      lang = getLanguage(e.getAttributes());
+    return lang;
+  }
+
+  /** Returns the lang attribute of an element or of one of its inline tags*/
+  private static String getLanguage(AttributeSet attributes) {
+    Object lang = attributes.getAttribute(HTML.Attribute.LANG);
+    if (lang != null)
+      return lang.toString();
+    for (Enumeration names = attributes.getAttributeNames(); names.hasMoreElements();) {
+      Object name = names.nextElement();
+      if (name instanceof HTML.Tag) {
+        Object tag = attributes.getAttribute(name);
+        if (tag instanceof AttributeSet) {
+          lang = ((AttributeSet) tag).getAttribute(HTML.Attribute.LANG);
+          if (lang != null)
+            return lang.toString();
+        }
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,12 @@
+package com.swabunga.spell.event;
+
+/** A WordTokenizer that knows the language of the words it returns,
+ *  for instance from the lang attributes of an HTML document.
+ *
+ */
+public interface LanguageWordTokenizer extends WordTokenizer {
+  /** Returns the language of the current word, such as "en" or "de-CH", or
+   *  null if the text does not say.
+   */
+  public String getCurrentWordLanguage();
+}
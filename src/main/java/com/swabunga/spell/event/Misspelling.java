@@ -0,0 +1,46 @@
+package com.swabunga.spell.event;
+
+import java.util.*;
+
+/** A misspelt word found by the BatchSpellChecker.
+ *  <p>This class is immutable.</p>
+ *
+ */
+public class Misspelling {
+  /**The misspelt word*/
+  private final String word;
+  /**The character position of the word in the checked text*/
+  private final int offset;
+  /**The best suggestions (Strings), best first*/
+  private final List suggestions;
+
+  /**Constructs the Misspelling
+   * @param word The word that is misspelled
+   * @param offset The character position of the word in the checked text
+   * @param suggestions The suggested replacements (Strings), best first
+   */
+  public Misspelling(String word, int offset, List suggestions) {
+    this.word = word;
+    this.offset = offset;
+    this.suggestions = Collections.unmodifiableList(suggestions);
+  }
+
+  /** Returns the misspelt word*/
+  public String getWord() {
+    return word;
+  }
+
+  /** Returns the character position of the word in the checked text*/
+  public int getOffset() {
+    return offset;
+  }
+
+  /** Returns the suggested replacements (Strings), best first*/
+  public List getSuggestions() {
+    return suggestions;
+  }
+
+  public String toString() {
+    return word + "@" + offset + " " + suggestions;
+  }
+}
@@ -0,0 +1,71 @@
+package com.swabunga.spell.event;
+
+import java.util.*;
+
+/** The result of checking one text with the BatchSpellChecker.
+ *
+ */
+public class SpellCheckReport {
+  /**The name of the checked text, a file path for files*/
+  private final String name;
+  /**The misspellings in the order they appear in the text*/
+  private final List misspellings;
+  /**The number of words checked*/
+  private final int wordCount;
+  /**Set if the text could not be read*/
+  private final Exception error;
+
+  /**Constructs the SpellCheckReport
+   * @param name The name of the checked text
+   * @param misspellings The Misspellings, in text order
+   * @param wordCount The number of words checked
+   */
+  public SpellCheckReport(String name, List misspellings, int wordCount) {
+    this.name = name;
+    this.misspellings = Collections.unmodifiableList(misspellings);
+    this.wordCount = wordCount;
+    this.error = null;
+  }
+
+  /**Constructs the report of a text that could not be checked
+   * @param name The name of the text
+   * @param error Why the text could not be checked
+   */
+  public SpellCheckReport(String name, Exception error) {
+    this.name = name;
+    this.misspellings = Collections.EMPTY_LIST;
+    this.wordCount = 0;
+    this.error = error;
+  }
+
+  /** Returns the name of the checked text*/
+  public String getName() {
+    return name;
+  }
+
+  /** Returns the Misspellings in the order they appear in the text*/
+  public List getMisspellings() {
+    return misspellings;
+  }
+
+  /** Returns the number of misspelt words*/
+  public int getErrorCount() {
+    return misspellings.size();
+  }
+
+  /** Returns the number of words checked*/
+  public int getWordCount() {
+    return wordCount;
+  }
+
+  /** Returns the exception that stopped the text from being checked, or null*/
+  public Exception getError() {
+    return error;
+  }
+
+  public String toString() {
+    if (error != null)
+      return name + ": " + error;
+    return name + ": " + wordCount + " words, " + misspellings.size() + " misspelt " + misspellings;
+  }
+}
@@ -20,8 +20,13 @@ public class SpellChecker
 
   private List eventListeners = new ArrayList();
   private SpellDictionary dictionary;
+  /** Where the suggestions come from, the dictionary itself unless set otherwise*/
+  private SuggestionEngine suggestionEngine;
+  /** How many suggestions are offered per misspelt word, 0 meaning all of them*/
+  private int suggestionCount = 0;
   
-  private Configuration config = Configuration.getConfiguration();
+  /** The threshold and ignore settings, this checker's own*/
+  private ConfigurationSnapshot config;
 
   /**This variable holds all of the words that are to be always ignored */
   private Set ignoredWords = new HashSet();
@@ -33,22 +38,81 @@ public class SpellChecker
    * @param  dictionary  Description of the Parameter
    */
   public SpellChecker(SpellDictionary dictionary) {
+    this(dictionary, Configuration.getSnapshot());
+  }
+
+
+  /**
+   * Constructs the SpellChecker with a threshold. Other checkers and the
+   *  saved configuration keep theirs.
+   *
+   * @param  dictionary  Description of the Parameter
+   * @param  threshold   Description of the Parameter
+   */
+  public SpellChecker(SpellDictionary dictionary, int threshold) {
+    this(dictionary, Configuration.getSnapshot().withThreshold(threshold));
+  }
+
+
+  /**
+   * Constructs the SpellChecker with its own settings. They are read once,
+   *  here.
+   *
+   * @param  dictionary  The dictionary to check against
+   * @param  config      The threshold and ignore settings
+   */
+  public SpellChecker(SpellDictionary dictionary, Configuration config) {
     if (dictionary == null) {
       throw new IllegalArgumentException("dictionary must non-null");
     }
     this.dictionary = dictionary;
+    this.suggestionEngine = dictionary;
+    this.config = ConfigurationSnapshot.of(config);
   }
 
 
   /**
-   * Constructs the SpellChecker with a threshold
+   * Returns the threshold and ignore settings of this checker.
    *
-   * @param  dictionary  Description of the Parameter
-   * @param  threshold   Description of the Parameter
+   * @return  The settings
    */
-  public SpellChecker(SpellDictionary dictionary, int threshold) {
-    this(dictionary);
-    config.setInteger( Configuration.SPELL_THRESHOLD, threshold );
+  public ConfigurationSnapshot getConfiguration() {
+    return config;
+  }
+
+
+  /**
+   * Sets the engine that suggests corrections for misspelt words. Passing
+   *  null restores the phonetic suggestions of the dictionary.
+   *
+   * @param  engine  The new suggestion engine
+   */
+  public void setSuggestionEngine(SuggestionEngine engine) {
+    suggestionEngine = (engine == null) ? dictionary : engine;
+  }
+
+
+  /**
+   * Sets how many suggestions are offered per misspelt word, the best first.
+   *  0 offers all of them.
+   *
+   * @param  count  The number of suggestions
+   */
+  public void setSuggestionCount(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must not be negative");
+    }
+    suggestionCount = count;
+  }
+
+
+  /**
+   * Returns the engine that suggests corrections for misspelt words.
+   *
+   * @return  The suggestion engine
+   */
+  public SuggestionEngine getSuggestionEngine() {
+    return suggestionEngine;
   }
 
 
@@ -110,13 +174,30 @@ public class SpellChecker
   }
 
 
+  /**
+   * Returns the dictionary to check the current word against: the view of
+   *  its language if the dictionary is layered and the tokenizer knows it.
+   *
+   * @param  dictionary  The dictionary of the checker
+   * @param  tokenizer   The tokenizer positioned on the word
+   * @return             The dictionary for the word
+   */
+  static SpellDictionary dictionaryFor(SpellDictionary dictionary, WordTokenizer tokenizer) {
+    if (dictionary instanceof LayeredSpellDictionary && tokenizer instanceof LanguageWordTokenizer) {
+      String language = ((LanguageWordTokenizer) tokenizer).getCurrentWordLanguage();
+      return ((LayeredSpellDictionary) dictionary).forLanguage(language);
+    }
+    return dictionary;
+  }
+
+
   /**
    * Returns true iif this word contains a digit
    *
    * @param  word  Description of the Parameter
    * @return       The digitWord value
    */
-  private final static boolean isDigitWord(String word) {
+  final static boolean isDigitWord(String word) {
     for (int i = word.length() - 1; i >= 0; i--) {
       if (Character.isDigit(word.charAt(i))) {
         return true;
@@ -132,7 +213,7 @@ public class SpellChecker
    * @param  word  Description of the Parameter
    * @return       The iNETWord value
    */
-  private final static boolean isINETWord(String word) {
+  final static boolean isINETWord(String word) {
     //JMH TBD
     return false;
   }
@@ -144,7 +225,7 @@ public class SpellChecker
    * @param  word  Description of the Parameter
    * @return       The upperCaseWord value
    */
-  private final static boolean isUpperCaseWord(String word) {
+  final static boolean isUpperCaseWord(String word) {
     for (int i = word.length() - 1; i >= 0; i--) {
       if (Character.isLowerCase(word.charAt(i))) {
         return false;
@@ -161,7 +242,7 @@ public class SpellChecker
    * @param startsSentance True if this word is at the start of a sentance
    * @return       The mixedCaseWord value
    */
-  private final static boolean isMixedCaseWord(String word, boolean startsSentance) {
+  final static boolean isMixedCaseWord(String word, boolean startsSentance) {
     int strLen = word.length();
     boolean isUpper = Character.isUpperCase(word.charAt(0));
     //Ignore the first character if this word starts the sentance and the first
@@ -221,6 +302,8 @@ public class SpellChecker
         String addWord = event.getReplaceWord();
         tokenizer.replaceWord(addWord);
         dictionary.addWord(addWord);
+        if (suggestionEngine != dictionary)
+          suggestionEngine.addWord(addWord);
         break;
       case SpellCheckEvent.CANCEL:
         return true;
@@ -240,19 +323,35 @@ public class SpellChecker
    * @return Either SPELLCHECK_OK, SPELLCHECK_CANCEL or the number of errors found. The number of errors are those that are found BEFORE and corretions are made.
    */
   public final int checkSpelling(WordTokenizer tokenizer) {
+    long start = System.nanoTime();
+    int checked = 0;
+    int misses = 0;
     int errors = 0;
     boolean terminated = false;
     //Keep track of the previous word
     String previousWord = null;
+    //Correctly spelt words are only looked at through a view, if possible
+    CharSequenceWordTokenizer views = (tokenizer instanceof CharSequenceWordTokenizer) ?
+        (CharSequenceWordTokenizer) tokenizer : null;
     while (tokenizer.hasMoreWords() && !terminated) {
-      String word = tokenizer.nextWord();
-      //Check the spelling of the word
-      if (!dictionary.isCorrect(word)) {
+      CharSequence token;
+      String word = null;
+      if (views != null)
+        token = views.nextWordView();
+      else
+        token = word = tokenizer.nextWord();
+      //Check the spelling of the word, in its language if that is known
+      SpellDictionary words = dictionaryFor(dictionary, tokenizer);
+      checked++;
+      if (!words.isCorrect(token)) {
+        misses++;
+        if (word == null)
+          word = token.toString();
  		if (
-          	  (config.getBoolean(Configuration.SPELL_IGNOREMIXEDCASE) && isMixedCaseWord(word, tokenizer.isNewSentance())) ||
-              (config.getBoolean(Configuration.SPELL_IGNOREUPPERCASE) && isUpperCaseWord(word)) ||
-              (config.getBoolean(Configuration.SPELL_IGNOREDIGITWORDS) && isDigitWord(word)) ||
-              (config.getBoolean(Configuration.SPELL_IGNOREINTERNETADDRESSES) && isINETWord(word))) {
+          	  (config.isIgnoreMixedCase() && isMixedCaseWord(word, tokenizer.isNewSentance())) ||
+              (config.isIgnoreUpperCase() && isUpperCaseWord(word)) ||
+              (config.isIgnoreDigitWords() && isDigitWord(word)) ||
+              (config.isIgnoreInternetAddresses() && isINETWord(word))) {
           //Null event. Since we are ignoring this word due
           //to one of the above cases.
         } else {
@@ -267,8 +366,10 @@ public class SpellChecker
               //JMH Need to somehow capitalise the suggestions if
               //ignoreSentanceCapitalisation is not set to true
               //Fire the event.
-              SpellCheckEvent event = new BasicSpellCheckEvent(word, dictionary.getSuggestions(word,
-                  config.getInteger(Configuration.SPELL_THRESHOLD)), tokenizer);
+              SuggestionEngine suggestions = (suggestionEngine == dictionary) ? words : suggestionEngine;
+              SpellCheckEvent event = new BasicSpellCheckEvent(word, suggestions.getSuggestions(word,
+                  config.getThreshold(),
+                  (suggestionCount == 0) ? Integer.MAX_VALUE : suggestionCount), tokenizer);
               terminated = fireAndHandleEvent(tokenizer, event);
             }
           }
@@ -281,8 +382,10 @@ public class SpellChecker
          *  }
          */
         //Check for capitalisation
-        if ((!config.getBoolean(Configuration.SPELL_IGNORESENTANCECAPITALIZATION)) && (tokenizer.isNewSentance())
-            && (Character.isLowerCase(word.charAt(0)))) {
+        if ((!config.isIgnoreSentanceCapitalization()) && (tokenizer.isNewSentance())
+            && (Character.isLowerCase(token.charAt(0)))) {
+          if (word == null)
+            word = token.toString();
           errors++;
           StringBuffer buf = new StringBuffer(word);
           buf.setCharAt(0, Character.toUpperCase(word.charAt(0)));
@@ -294,6 +397,7 @@ public class SpellChecker
         }
       }
     }
+    SpellEngineStats.getInstance().recordCheck(System.nanoTime() - start, checked, misses);
     if (terminated)
       return SPELLCHECK_CANCEL;
     else if (errors == 0)
@@ -310,7 +414,9 @@ public class SpellChecker
 		ignoredWords     = null;
 		autoReplaceWords = null;
 		config           = null;
-		dictionary.dispose();
+		// A shared dictionary is only disposed by its last user
+		if (!SpellDictionaryRegistry.release(dictionary))
+			dictionary.dispose();
 	}
 
 }
@@ -10,7 +10,7 @@ import java.text.*;
  *
  * @author Jason Height (jheight@chariot.net.au)
  */
-public class StringWordTokenizer implements WordTokenizer {
+public class StringWordTokenizer implements CharSequenceWordTokenizer {
   /** Holds the start character position of the current word*/
   private int currentWordPos = 0;
   /** Holds the end character position of the current word*/
@@ -18,7 +18,9 @@ public class StringWordTokenizer implements WordTokenizer {
   /** Holds the start character position of the next word*/
   private int nextWordPos = -1;
   /** The actual text that is being tokenized*/
-  private StringBuffer text;
+  private StringBuilder text;
+  /** The view handed out by nextWordView*/
+  private WordView view;
   /** The cumulative word count that have been processed*/
   private int wordCount = 0;
   /** Flag indicating if there are any more tokens (words) left*/
@@ -36,9 +38,10 @@ public class StringWordTokenizer implements WordTokenizer {
     sentanceIterator = BreakIterator.getSentenceInstance();
     sentanceIterator.setText(text);
     sentanceIterator.first();
-    //Wrap a string buffer to hopefully make things a bit easier and efficient to
+    //Wrap a string builder to hopefully make things a bit easier and efficient to
     //replace words etc.
-    this.text = new StringBuffer(text);
+    this.text = new StringBuilder(text);
+    view = new WordView(this.text);
     currentWordPos = getNextWordStart(this.text, 0);
     //If the current word pos is -1 then the string was all white space
     if (currentWordPos != -1) {
@@ -52,7 +55,7 @@ public class StringWordTokenizer implements WordTokenizer {
   /** This helper method will return the start character of the next
    * word in the buffer from the start position
    */
-  private static int getNextWordStart(StringBuffer text, int startPos) {
+  private static int getNextWordStart(StringBuilder text, int startPos) {
     int size = text.length();
     for (int i=startPos;i<size;i++) {
       if (Character.isLetterOrDigit(text.charAt(i))) {
@@ -65,7 +68,7 @@ public class StringWordTokenizer implements WordTokenizer {
   /** This helper method will return the end of the next word in the buffer.
    *
    */
-  private static int getNextWordEnd(StringBuffer text, int startPos) {
+  private static int getNextWordEnd(StringBuilder text, int startPos) {
     int size = text.length();
     for (int i=startPos;i<size;i++) {
       if (!Character.isLetterOrDigit(text.charAt(i))) {
@@ -101,6 +104,19 @@ public class StringWordTokenizer implements WordTokenizer {
    *
    */
   public String nextWord() {
+    advance();
+    return text.substring(currentWordPos, currentWordEnd);
+  }
+
+  /** Returns a view of the next word in the text, see CharSequenceWordTokenizer
+   *
+   */
+  public CharSequence nextWordView() {
+    advance();
+    return view.set(currentWordPos, currentWordEnd);
+  }
+
+  private void advance() {
     if (!first) {
       currentWordPos = nextWordPos;
       currentWordEnd = getNextWordEnd(text, currentWordPos);
@@ -115,12 +131,10 @@ public class StringWordTokenizer implements WordTokenizer {
       }
     }
     //The nextWordPos has already been populated
-    String word = text.substring(currentWordPos, currentWordEnd);
     wordCount++;
     first = false;
     if (nextWordPos == -1)
       moreTokens = false;
-    return word;
   }
 
   /** Returns the current number of words that have been processed
@@ -0,0 +1,41 @@
+package com.swabunga.spell.event;
+
+/** A reusable view of the characters from start to end of a text.
+ *
+ */
+final class WordView implements CharSequence {
+  private final CharSequence text;
+  private int start;
+  private int end;
+
+  WordView(CharSequence text) {
+    this.text = text;
+  }
+
+  /** Moves the view to other characters of the text*/
+  CharSequence set(int start, int end) {
+    this.start = start;
+    this.end = end;
+    return this;
+  }
+
+  public int length() {
+    return end - start;
+  }
+
+  public char charAt(int index) {
+    if (index < 0 || index >= end - start)
+      throw new IndexOutOfBoundsException("index " + index + ", length " + (end - start));
+    return text.charAt(start + index);
+  }
+
+  public CharSequence subSequence(int from, int to) {
+    if (from < 0 || to > end - start || from > to)
+      throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + (end - start));
+    return text.subSequence(start + from, start + to);
+  }
+
+  public String toString() {
+    return text.subSequence(start, end).toString();
+  }
+}
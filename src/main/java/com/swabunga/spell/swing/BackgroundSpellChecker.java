@@ -0,0 +1,412 @@
+package com.swabunga.spell.swing;
+
+import com.swabunga.spell.engine.*;
+import com.swabunga.spell.event.*;
+import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.text.*;
+import javax.swing.text.html.HTMLDocument;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+/** Checks the spelling of a text component continuously, as it is edited,
+ *  and underlines the misspelt words.
+ *  <p>
+ *  Edits only mark the paragraphs they touch as damaged, which costs the
+ *  same whatever the size of the document. A background thread picks up
+ *  the damaged paragraphs shortly after typing pauses, reads their text
+ *  under the document read lock, checks just those words and hands the
+ *  misspellings back to the event dispatch thread to be highlighted.
+ *  </p>
+ *  <p>
+ *  In an HTML document the words are checked in the language of their lang
+ *  attribute, as the spell check dialog does, if the dictionary is a
+ *  LayeredSpellDictionary.
+ *  </p>
+ *
+ */
+public class BackgroundSpellChecker implements DocumentListener, PropertyChangeListener {
+  /** How long typing has to pause before damaged paragraphs are checked*/
+  private static final int DELAY_MILLIS = 300;
+
+  private final JTextComponent component;
+  private final BatchSpellChecker checker;
+  private final Highlighter.HighlightPainter painter = new SquigglePainter(Color.red);
+
+  /** Set on the event dispatch thread, read by the checking thread*/
+  private volatile Document document;
+  /** Damaged ranges of the document, as start and end Positions*/
+  private final List damaged = new ArrayList();
+  private ScheduledExecutorService worker;
+  /** The check waiting for typing to pause, guarded by damaged*/
+  private ScheduledFuture pending;
+
+  /**
+   * Constructs the checker. It does nothing until started.
+   *
+   * @param  component   The component to check
+   * @param  dictionary  The dictionary to check against
+   */
+  public BackgroundSpellChecker(JTextComponent component, SpellDictionary dictionary) {
+    this.component = component;
+    checker = new BatchSpellChecker(dictionary);
+    checker.setSuggestionCount(0);
+  }
+
+  /** Starts checking, beginning with the whole document. Call on the event dispatch thread.*/
+  public void start() {
+    if (worker != null)
+      return;
+    worker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Background spell checker");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }
+    });
+    component.addPropertyChangeListener("document", this);
+    attach(component.getDocument());
+  }
+
+  /** Stops checking and removes the underlines. Call on the event dispatch thread.*/
+  public void stop() {
+    if (worker == null)
+      return;
+    component.removePropertyChangeListener("document", this);
+    detach();
+    worker.shutdownNow();
+    worker = null;
+    removeHighlights(0, Integer.MAX_VALUE);
+  }
+
+  /** Returns true if the checker has been started*/
+  public boolean isRunning() {
+    return worker != null;
+  }
+
+  /** Checks the whole document again, for instance after a word has been added to the dictionary*/
+  public void recheckAll() {
+    if (document != null)
+      damage(0, document.getLength());
+  }
+
+  private void attach(Document newDocument) {
+    document = newDocument;
+    document.addDocumentListener(this);
+    recheckAll();
+  }
+
+  private void detach() {
+    if (document != null)
+      document.removeDocumentListener(this);
+    document = null;
+    synchronized (damaged) {
+      damaged.clear();
+      pending = null;
+    }
+  }
+
+  /* PropertyChangeListener method, follows the component to a new document */
+  public void propertyChange(PropertyChangeEvent e) {
+    detach();
+    removeHighlights(0, Integer.MAX_VALUE);
+    if (e.getNewValue() != null)
+      attach((Document) e.getNewValue());
+  }
+
+  /* DocumentListener methods */
+  public void insertUpdate(DocumentEvent e) {
+    damage(e.getOffset(), e.getOffset() + e.getLength());
+  }
+
+  public void removeUpdate(DocumentEvent e) {
+    damage(e.getOffset(), e.getOffset());
+  }
+
+  public void changedUpdate(DocumentEvent e) {
+    //Attribute changes do not change the words
+  }
+
+  /**
+   * Marks the paragraphs from start to end as damaged and puts the check
+   * off until DELAY_MILLIS after this edit.
+   */
+  private void damage(int start, int end) {
+    Document doc = document;
+    if (doc == null)
+      return;
+    try {
+      int from = paragraphStart(doc, start);
+      int to = paragraphEnd(doc, end);
+      synchronized (damaged) {
+        if (!isDamaged(from, to))
+          damaged.add(new Position[] { doc.createPosition(from), doc.createPosition(to) });
+        if (worker == null)
+          return;
+        if (pending != null)
+          pending.cancel(false);
+        pending = worker.schedule(new Runnable() {
+          public void run() {
+            checkDamaged();
+          }
+        }, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    } catch (BadLocationException ex) {
+      //The edit is gone already, the next one will mark the paragraph
+    } catch (RejectedExecutionException ex) {
+      //Stopped meanwhile
+    }
+  }
+
+  /** Returns true if a damaged range covers from to to, guarded by damaged*/
+  private boolean isDamaged(int from, int to) {
+    for (Iterator i = damaged.iterator(); i.hasNext();) {
+      Position[] range = (Position[]) i.next();
+      if (range[0].getOffset() <= from && range[1].getOffset() >= to)
+        return true;
+    }
+    return false;
+  }
+
+  private static Element paragraphElement(Document doc, int offset) {
+    if (doc instanceof StyledDocument)
+      return ((StyledDocument) doc).getParagraphElement(offset);
+    Element root = doc.getDefaultRootElement();
+    return root.getElement(root.getElementIndex(offset));
+  }
+
+  private static int paragraphStart(Document doc, int offset) {
+    return paragraphElement(doc, offset).getStartOffset();
+  }
+
+  private static int paragraphEnd(Document doc, int offset) {
+    return Math.min(paragraphElement(doc, offset).getEndOffset(), doc.getLength());
+  }
+
+  /** Runs on the worker: checks every damaged paragraph once, however often it was edited*/
+  private void checkDamaged() {
+    final Position[][] ranges;
+    synchronized (damaged) {
+      ranges = (Position[][]) damaged.toArray(new Position[damaged.size()][]);
+      damaged.clear();
+    }
+    final Document doc = document;
+    if (doc == null || ranges.length == 0)
+      return;
+    final List paragraphs = new ArrayList();
+    //Only read the document under its read lock
+    doc.render(new Runnable() {
+      public void run() {
+        for (Iterator i = merge(doc, ranges).iterator(); i.hasNext();) {
+          Paragraphs p = (Paragraphs) i.next();
+          try {
+            p.text = doc.getText(p.start, p.end - p.start);
+            readParagraphs(doc, p);
+            if (doc instanceof HTMLDocument)
+              readLanguages((HTMLDocument) doc, p);
+            paragraphs.add(p);
+          } catch (BadLocationException ex) {
+            //Edited meanwhile, the edit has marked the paragraph again
+          }
+        }
+      }
+    });
+    for (Iterator i = paragraphs.iterator(); i.hasNext();) {
+      if (Thread.currentThread().isInterrupted())
+        return;
+      Paragraphs p = (Paragraphs) i.next();
+      p.misspellings = checker.check("", new ParagraphWordTokenizer(p)).getMisspellings();
+    }
+    SwingUtilities.invokeLater(new Runnable() {
+      public void run() {
+        for (Iterator i = paragraphs.iterator(); i.hasNext();) {
+          Paragraphs p = (Paragraphs) i.next();
+          highlight(doc, p);
+        }
+      }
+    });
+  }
+
+  /**
+   * Keeps the paragraph elements of the range. Their offsets follow the
+   * edits made before the underlines are drawn, see highlight. Call under
+   * the read lock.
+   */
+  private static void readParagraphs(Document doc, Paragraphs p) {
+    ArrayList elements = new ArrayList();
+    for (int pos = p.start; pos < p.end;) {
+      Element paragraph = paragraphElement(doc, pos);
+      elements.add(paragraph);
+      pos = Math.max(paragraph.getEndOffset(), pos + 1);
+    }
+    p.elements = (Element[]) elements.toArray(new Element[elements.size()]);
+    p.elementStarts = new int[p.elements.length];
+    for (int i = 0; i < p.elements.length; i++)
+      p.elementStarts[i] = Math.max(p.elements[i].getStartOffset() - p.start, 0);
+  }
+
+  /** Reads where the language of the paragraphs changes. Call under the read lock.*/
+  private static void readLanguages(HTMLDocument doc, Paragraphs p) {
+    ArrayList starts = new ArrayList();
+    ArrayList languages = new ArrayList();
+    for (int pos = p.start; pos < p.end;) {
+      Element run = doc.getCharacterElement(pos);
+      String language = DocumentWordTokenizer.getLanguage(run);
+      if (languages.isEmpty() || !equal(language, languages.get(languages.size() - 1))) {
+        starts.add(Integer.valueOf(pos - p.start));
+        languages.add(language);
+      }
+      pos = Math.max(run.getEndOffset(), pos + 1);
+    }
+    p.runStarts = new int[starts.size()];
+    for (int i = 0; i < p.runStarts.length; i++)
+      p.runStarts[i] = ((Integer) starts.get(i)).intValue();
+    p.runLanguages = (String[]) languages.toArray(new String[languages.size()]);
+  }
+
+  private static boolean equal(Object a, Object b) {
+    return (a == null) ? b == null : a.equals(b);
+  }
+
+  /**
+   * Returns the paragraphs the ranges are in, sorted, with the ones that
+   * overlap or touch joined. Call under the read lock.
+   */
+  private static List merge(Document doc, Position[][] ranges) {
+    int length = doc.getLength();
+    Paragraphs[] all = new Paragraphs[ranges.length];
+    for (int i = 0; i < ranges.length; i++) {
+      int start = Math.min(ranges[i][0].getOffset(), length);
+      int end = Math.min(Math.max(ranges[i][1].getOffset(), start), length);
+      all[i] = new Paragraphs(paragraphStart(doc, start), paragraphEnd(doc, end));
+    }
+    Arrays.sort(all, new Comparator() {
+      public int compare(Object a, Object b) {
+        return ((Paragraphs) a).start - ((Paragraphs) b).start;
+      }
+    });
+    List merged = new ArrayList();
+    Paragraphs last = null;
+    for (int i = 0; i < all.length; i++) {
+      if (last != null && all[i].start <= last.end) {
+        last.end = Math.max(last.end, all[i].end);
+      } else {
+        last = all[i];
+        merged.add(last);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Runs on the event dispatch thread: replaces the underlines of checked
+   * paragraphs. The document may have been edited since it was read, so a
+   * word is placed relative to where its paragraph is now.
+   */
+  private void highlight(Document doc, Paragraphs p) {
+    Element[] elements = p.elements;
+    if (doc != document || elements.length == 0)
+      return;
+    removeHighlights(elements[0].getStartOffset(), elements[elements.length - 1].getEndOffset());
+    Highlighter highlighter = component.getHighlighter();
+    for (Iterator i = p.misspellings.iterator(); i.hasNext();) {
+      Misspelling misspelling = (Misspelling) i.next();
+      int k = Arrays.binarySearch(p.elementStarts, misspelling.getOffset());
+      if (k < 0)
+        k = -k - 2;
+      int offset = elements[k].getStartOffset() + misspelling.getOffset() - p.elementStarts[k];
+      String word = misspelling.getWord();
+      try {
+        //Skip words that have been edited since they were read
+        if (offset + word.length() <= doc.getLength() && word.equals(doc.getText(offset, word.length())))
+          highlighter.addHighlight(offset, offset + word.length(), painter);
+      } catch (BadLocationException ex) {
+        //Edited meanwhile, the edit has marked the paragraph again
+      }
+    }
+  }
+
+  private void removeHighlights(int start, int end) {
+    Highlighter highlighter = component.getHighlighter();
+    if (highlighter == null)
+      return;
+    Highlighter.Highlight[] highlights = highlighter.getHighlights();
+    for (int i = 0; i < highlights.length; i++) {
+      Highlighter.Highlight h = highlights[i];
+      if (h.getPainter() == painter && h.getEndOffset() >= start && h.getStartOffset() <= end)
+        highlighter.removeHighlight(h);
+    }
+  }
+
+  /** A run of whole paragraphs to check, with its text and misspellings once read and checked*/
+  private static class Paragraphs {
+    final int start;
+    int end;
+    String text;
+    /** The paragraph elements and where each starts, relative to start*/
+    Element[] elements;
+    int[] elementStarts;
+    /** Where the language changes, relative to start, and the language from there on; null for plain text*/
+    int[] runStarts;
+    String[] runLanguages;
+    List misspellings;
+
+    Paragraphs(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  /** Tokenizes the text of paragraphs, knowing the language of each word as read from the document*/
+  private static class ParagraphWordTokenizer extends StringWordTokenizer implements LanguageWordTokenizer {
+    private final Paragraphs paragraphs;
+
+    ParagraphWordTokenizer(Paragraphs paragraphs) {
+      super(paragraphs.text);
+      this.paragraphs = paragraphs;
+    }
+
+    public String getCurrentWordLanguage() {
+      int[] starts = paragraphs.runStarts;
+      if (starts == null)
+        return null;
+      int i = Arrays.binarySearch(starts, getCurrentWordPosition());
+      return paragraphs.runLanguages[(i >= 0) ? i : -i - 2];
+    }
+  }
+
+  /** Draws a wavy line under the highlighted text*/
+  private static class SquigglePainter extends LayeredHighlighter.LayerPainter {
+    private final Color color;
+
+    SquigglePainter(Color color) {
+      this.color = color;
+    }
+
+    public void paint(Graphics g, int offs0, int offs1, Shape bounds, JTextComponent c) {
+      //Everything is done in paintLayer
+    }
+
+    public Shape paintLayer(Graphics g, int offs0, int offs1, Shape bounds, JTextComponent c, View view) {
+      Rectangle r;
+      try {
+        Shape shape = view.modelToView(offs0, Position.Bias.Forward, offs1, Position.Bias.Backward, bounds);
+        r = (shape instanceof Rectangle) ? (Rectangle) shape : shape.getBounds();
+      } catch (BadLocationException ex) {
+        return null;
+      }
+      g.setColor(color);
+      int y = r.y + r.height - 2;
+      for (int x = r.x; x < r.x + r.width - 2; x += 4) {
+        g.drawLine(x, y, x + 2, y - 2);
+        g.drawLine(x + 2, y - 2, x + 4, y);
+      }
+      return r;
+    }
+  }
+}
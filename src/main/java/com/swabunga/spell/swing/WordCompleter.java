@@ -0,0 +1,250 @@
+package com.swabunga.spell.swing;
+
+import com.swabunga.spell.engine.*;
+import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.text.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+/** Offers completions of the word being typed in a text component, from
+ *  the prefix index of a dictionary.
+ *  <p>
+ *  Once a word is MIN_PREFIX letters long a popup below the caret lists
+ *  its completions. Up and Down select one, Enter or Tab puts in the rest
+ *  of it, Escape or any other edit closes the popup. Each word taken is
+ *  used once more, which ranks it higher from then on. The component
+ *  keeps the focus throughout.
+ *  </p>
+ */
+public class WordCompleter implements DocumentListener, PropertyChangeListener {
+  /** The letters typed before completions are offered*/
+  public static final int MIN_PREFIX = 3;
+  /** The most completions shown*/
+  private static final int SHOWN = 8;
+
+  private final JTextComponent component;
+  private final PrefixIndex index;
+  private final JPopupMenu popup = new JPopupMenu();
+  private final JList list = new JList();
+  private final KeyListener keys = new KeyAdapter() {
+    public void keyPressed(KeyEvent e) {
+      if (popup.isVisible())
+        popupKey(e);
+    }
+  };
+  private final FocusListener focus = new FocusAdapter() {
+    public void focusLost(FocusEvent e) {
+      hide();
+    }
+  };
+
+  private Document document;
+  private boolean running = false;
+  /** The word the completions are for*/
+  private String prefix = "";
+  /** Set while a completion is put in, so that edit does not close the popup*/
+  private boolean completing = false;
+
+  /**
+   * Constructs the completer. It does nothing until started.
+   *
+   * @param  component   The component to complete words in
+   * @param  index       The words to complete from
+   */
+  public WordCompleter(JTextComponent component, PrefixIndex index) {
+    this.component = component;
+    this.index = index;
+    list.setFocusable(false);
+    list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    list.addMouseListener(new MouseAdapter() {
+      public void mouseClicked(MouseEvent e) {
+        complete();
+      }
+    });
+    popup.setFocusable(false);
+    popup.add(new JScrollPane(list));
+  }
+
+  /** Starts offering completions. Call on the event dispatch thread.*/
+  public void start() {
+    if (running)
+      return;
+    running = true;
+    component.addPropertyChangeListener("document", this);
+    component.addKeyListener(keys);
+    component.addFocusListener(focus);
+    attach(component.getDocument());
+  }
+
+  /** Stops offering completions. Call on the event dispatch thread.*/
+  public void stop() {
+    if (!running)
+      return;
+    running = false;
+    component.removePropertyChangeListener("document", this);
+    component.removeKeyListener(keys);
+    component.removeFocusListener(focus);
+    detach();
+    hide();
+  }
+
+  /** Returns true if the completer has been started*/
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void attach(Document newDocument) {
+    document = newDocument;
+    if (document != null)
+      document.addDocumentListener(this);
+  }
+
+  private void detach() {
+    if (document != null)
+      document.removeDocumentListener(this);
+    document = null;
+  }
+
+  /* PropertyChangeListener method, follows the component to a new document */
+  public void propertyChange(PropertyChangeEvent e) {
+    detach();
+    hide();
+    attach((Document) e.getNewValue());
+  }
+
+  /* DocumentListener methods */
+  public void insertUpdate(DocumentEvent e) {
+    if (completing)
+      return;
+    // Only a letter typed at the end of a word, not pasted text
+    final int end = e.getOffset() + e.getLength();
+    if (e.getLength() != 1 || !isWordChar(charAt(end - 1)) || isWordChar(charAt(end))) {
+      hide();
+      return;
+    }
+    // The document is locked during the notification, show the popup after it
+    SwingUtilities.invokeLater(new Runnable() {
+      public void run() {
+        offer(end);
+      }
+    });
+  }
+
+  public void removeUpdate(DocumentEvent e) {
+    if (!completing)
+      hide();
+  }
+
+  public void changedUpdate(DocumentEvent e) {
+    //Attribute changes do not change the words
+  }
+
+  /** Shows the completions of the word ending at the offset, if the caret is still there*/
+  private void offer(int end) {
+    if (!running || component.getCaretPosition() != end || document == null)
+      return;
+    int start = end;
+    while (start > 0 && isWordChar(charAt(start - 1)))
+      start--;
+    if (end - start < MIN_PREFIX) {
+      hide();
+      return;
+    }
+    try {
+      prefix = document.getText(start, end - start);
+    } catch (BadLocationException ex) {
+      hide();
+      return;
+    }
+    List completions = index.getCompletions(prefix, SHOWN);
+    if (completions.isEmpty()) {
+      hide();
+      return;
+    }
+    list.setListData(completions.toArray());
+    list.setVisibleRowCount(completions.size());
+    list.setSelectedIndex(0);
+    try {
+      Rectangle2D caret = component.modelToView2D(end);
+      popup.pack();
+      popup.show(component, (int) caret.getX(), (int) caret.getMaxY());
+    } catch (BadLocationException ex) {
+      hide();
+    }
+  }
+
+  /** Handles a key pressed while the popup shows*/
+  private void popupKey(KeyEvent e) {
+    int size = list.getModel().getSize();
+    switch (e.getKeyCode()) {
+      case KeyEvent.VK_DOWN:
+        list.setSelectedIndex((list.getSelectedIndex() + 1) % size);
+        list.ensureIndexIsVisible(list.getSelectedIndex());
+        e.consume();
+        break;
+      case KeyEvent.VK_UP:
+        list.setSelectedIndex((list.getSelectedIndex() + size - 1) % size);
+        list.ensureIndexIsVisible(list.getSelectedIndex());
+        e.consume();
+        break;
+      case KeyEvent.VK_ENTER:
+      case KeyEvent.VK_TAB:
+        complete();
+        e.consume();
+        break;
+      case KeyEvent.VK_ESCAPE:
+        hide();
+        e.consume();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** Puts in the rest of the selected completion*/
+  private void complete() {
+    String word = (String) list.getSelectedValue();
+    hide();
+    if (word == null || !word.startsWith(prefix))
+      return;
+    completing = true;
+    try {
+      component.replaceSelection(word.substring(prefix.length()));
+    } finally {
+      completing = false;
+    }
+    String indexed = indexedForm(word);
+    index.setFrequency(indexed, index.getFrequency(indexed) + 1);
+  }
+
+  /** Returns the word as the index has it, a completion of a capitalised prefix being capitalised for display*/
+  private String indexedForm(String word) {
+    if (index.contains(word) || !Character.isUpperCase(word.charAt(0)))
+      return word;
+    return Character.toLowerCase(word.charAt(0)) + word.substring(1);
+  }
+
+  private void hide() {
+    if (popup.isVisible())
+      popup.setVisible(false);
+  }
+
+  private char charAt(int offset) {
+    if (document == null || offset < 0 || offset >= document.getLength())
+      return ' ';
+    try {
+      return document.getText(offset, 1).charAt(0);
+    } catch (BadLocationException ex) {
+      return ' ';
+    }
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetter(c) || c == '\'';
+  }
+}